@@ -0,0 +1,100 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.BookApiApplication;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic catalog data and an application context seeded with it, shared by the benchmarks.
+ */
+final class BenchmarkBooks {
+
+    private static final String[] AUTHORS = {
+            "Chinua Achebe", "Margaret Ogolla", "Barack Obama", "George Orwell", "Ngugi wa Thiong'o",
+            "Chimamanda Ngozi Adichie", "Wole Soyinka", "Toni Morrison", "Haruki Murakami", "Jane Austen"
+    };
+
+    private static final String[] WORDS = {
+            "river", "source", "things", "fall", "apart", "dreams", "father", "animal", "farm", "grain",
+            "wheat", "petals", "blood", "devil", "cross", "purple", "hibiscus", "half", "yellow", "sun"
+    };
+
+    private BenchmarkBooks() {
+    }
+
+    static BookDto book(long id) {
+        return new BookDto(
+                id,
+                title(id),
+                AUTHORS[(int) (id % AUTHORS.length)],
+                "A synthetic description of book " + id + " about " + WORDS[(int) ((id * 7) % WORDS.length)]
+                        + " and " + WORDS[(int) ((id * 13) % WORDS.length)],
+                String.format("978-%010d", id),
+                0L);
+    }
+
+    static List<BookDto> books(int count) {
+        List<BookDto> books = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            books.add(book(id));
+        }
+        return books;
+    }
+
+    private static String title(long id) {
+        return capitalize(WORDS[(int) (id % WORDS.length)]) + " " + WORDS[(int) ((id / WORDS.length) % WORDS.length)]
+                + " " + id;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * Starts the application on a random port against a private in-memory H2 database
+     * and inserts {@code catalogSize} books on top of the migrated seed data.
+     */
+    static ConfigurableApplicationContext startSeeded(int catalogSize, String... properties) {
+        return startSeeded(catalogSize, List.of(), properties);
+    }
+
+    static ConfigurableApplicationContext startSeeded(int catalogSize,
+                                                      List<ApplicationContextInitializer<?>> initializers,
+                                                      String... properties) {
+        List<String> allProperties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                // the benchmarks measure the service, not the limits put in front of it
+                "books.rate-limit.enabled=false"));
+        allProperties.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookApiApplication.class)
+                .logStartupInfo(false)
+                .initializers(initializers.toArray(ApplicationContextInitializer<?>[]::new))
+                .properties(allProperties.toArray(String[]::new))
+                .run();
+
+        seed(context.getBean(JdbcTemplate.class), catalogSize);
+
+        return context;
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, int catalogSize) {
+        int batchSize = 1000;
+        for (int from = 1; from <= catalogSize; from += batchSize) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            for (long id = from; id < Math.min(from + batchSize, catalogSize + 1L); id++) {
+                BookDto book = book(id);
+                rows.add(new Object[]{book.getTitle(), book.getAuthor(), book.getDescription(), book.getIsbn()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO books (title, author, description, isbn) VALUES (?, ?, ?, ?)", rows);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.model.dto.BookBatchResult;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second written through the single-item path (one transaction per book)
+ * and through the bulk path (one transaction, JDBC batches). Scores are per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookBatchInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private long nextId = 1_000_000;
+
+    private List<BookDto> books;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkBooks.startSeeded(0);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBooks() {
+        books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            BookDto book = BenchmarkBooks.book(nextId++);
+            book.setBookId(null);
+            books.add(book);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleItem() {
+        for (BookDto book : books) {
+            bookService.save(book);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<BookBatchResult> batch() {
+        return bookService.saveAll(books);
+    }
+}
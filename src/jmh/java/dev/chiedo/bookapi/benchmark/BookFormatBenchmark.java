@@ -0,0 +1,79 @@
+package dev.chiedo.bookapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode time of a book list per wire format. The payload sizes are printed
+// once per trial, as JMH has no column for them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookFormatBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int listSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private List<BookDto> books;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        // built the way BinaryFormatsConfig builds the converters' mappers
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        var listType = objectMapper.getTypeFactory().constructCollectionType(List.class, BookDto.class);
+
+        writer = objectMapper.writerFor(listType);
+        reader = objectMapper.readerFor(listType);
+        books = BenchmarkBooks.books(listSize);
+        payload = writer.writeValueAsBytes(books);
+
+        System.out.printf("%n%s, %d books: %d bytes (%.1f per book)%n",
+                format, listSize, payload.length, payload.length / (double) listSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public List<BookDto> decode() throws IOException {
+        return reader.readValue(payload);
+    }
+}
@@ -0,0 +1,59 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.config.MapperConfig;
+import dev.chiedo.bookapi.mapper.BookMapperImpl;
+import dev.chiedo.bookapi.mapper.DirectBookMapperImpl;
+import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    @Param({"direct", "modelmapper"})
+    private String mapper;
+
+    private IMapper<BookEntity, BookDto> bookMapper;
+
+    private BookEntity entity;
+
+    private BookDto dto;
+
+    @Setup
+    public void setUp() {
+        bookMapper = "direct".equals(mapper)
+                ? new DirectBookMapperImpl()
+                : new BookMapperImpl(new MapperConfig().modelMapper());
+
+        dto = BenchmarkBooks.book(42);
+        entity = bookMapper.mapFrom(dto);
+    }
+
+    @Benchmark
+    public BookDto mapTo() {
+        return bookMapper.mapTo(entity);
+    }
+
+    @Benchmark
+    public BookEntity mapFrom() {
+        return bookMapper.mapFrom(dto);
+    }
+}
@@ -0,0 +1,84 @@
+package dev.chiedo.bookapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// A page of books read and written as JSON the way a cache miss serves it, in full or
+// with fields=. The body sizes are printed once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookProjectionBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    // descriptions are padded to this length; the column holds at most 256 characters
+    @Param({"50", "256"})
+    private int descriptionLength;
+
+    @Param({"all", "bookId,title,author"})
+    private String fields;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private ObjectMapper objectMapper;
+
+    private Set<BookField> bookFields;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkBooks.startSeeded(CATALOG_SIZE, "books.json-cache.enabled=false");
+        context.getBean(JdbcTemplate.class).update(
+                "UPDATE books SET description = RPAD(description, ?, ' and more')", descriptionLength);
+
+        // the database itself, not pages served from the catalog snapshot
+        bookService = context.getBean("bookServiceImpl", BookService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        bookFields = fields.equals("all") ? null : BookField.fromParameter(fields);
+
+        System.out.printf("%n%s, %d books with %d character descriptions: %d bytes%n",
+                fields, pageSize, descriptionLength, page().length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] page() throws IOException {
+        Object books = bookFields == null
+                ? bookService.findPage(BookSort.ID, null, pageSize).books()
+                : bookService.findPage(BookSort.ID, null, pageSize, bookFields).books();
+
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
@@ -0,0 +1,63 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.search.BookSearchIndex;
+import dev.chiedo.bookapi.search.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory search index. The sample-time mode reports
+ * percentiles; "river" matches about a tenth of the catalog, "hibiscus yellow"
+ * two words spread over titles and descriptions, and "orwell 4242" a single
+ * author plus one rare title token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookSearchBenchmark {
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    @Param({"river", "hibiscus yellow", "orwell 4242"})
+    private String query;
+
+    private BookSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchIndex = new BookSearchIndex();
+        searchIndex.rebuild(sink -> {
+            for (long id = 1; id <= catalogSize; id++) {
+                sink.accept(BenchmarkBooks.book(id));
+            }
+        });
+    }
+
+    @Benchmark
+    public SearchResult firstPage() {
+        return searchIndex.search(query, 0, 20);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SearchResult firstPageConcurrent() {
+        return searchIndex.search(query, 0, 20);
+    }
+}
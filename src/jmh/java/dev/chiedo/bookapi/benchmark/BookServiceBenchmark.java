@@ -0,0 +1,75 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private BookService cachedBookService;
+
+    private long[] bookIds;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkBooks.startSeeded(catalogSize);
+        // the database itself; the primary bean answers repeated reads from its cache
+        bookService = context.getBean("bookServiceImpl", BookService.class);
+        cachedBookService = context.getBean(BookService.class);
+        // ids come from a sequence allocated in blocks, so they are not contiguous
+        bookIds = context.getBean(JdbcTemplate.class)
+                .queryForList("SELECT book_id FROM books ORDER BY book_id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookDto> findAll() {
+        return bookService.findAll();
+    }
+
+    @Benchmark
+    public Optional<BookDto> findById() {
+        return bookService.findById(bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)]);
+    }
+
+    @Benchmark
+    public Optional<BookDto> findByIdCached() {
+        return cachedBookService.findById(bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)]);
+    }
+}
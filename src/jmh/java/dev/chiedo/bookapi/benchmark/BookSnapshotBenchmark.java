@@ -0,0 +1,133 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.service.BookService;
+import dev.chiedo.bookapi.service.BookServiceImpl;
+import dev.chiedo.bookapi.snapshot.CatalogSnapshot;
+import dev.chiedo.bookapi.snapshot.CatalogSnapshots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// A page of books served from the in-memory catalog snapshot or read from the
+// database. The heap retained per book by the snapshot, and by the entities and
+// DTOs that BookService.findAll holds for the same books, is printed once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    @Param({"100"})
+    private int pageSize;
+
+    @Param({"ID", "TITLE"})
+    private BookSort sort;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private BookService database;
+
+    @Setup
+    public void setUp() {
+        printFootprint();
+
+        context = BenchmarkBooks.startSeeded(catalogSize, "books.snapshot.enabled=true",
+                "books.json-cache.enabled=false");
+        bookService = context.getBean(BookService.class);
+        database = context.getBean(BookServiceImpl.class);
+        context.getBean(CatalogSnapshots.class).refresh();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookPage snapshot() {
+        return bookService.findPage(sort, null, pageSize);
+    }
+
+    @Benchmark
+    public BookPage database() {
+        return database.findPage(sort, null, pageSize);
+    }
+
+    private void printFootprint() {
+        long lists = retained(() -> {
+            List<BookEntity> entities = new ArrayList<>(catalogSize);
+            List<BookDto> books = new ArrayList<>(catalogSize);
+            for (long id = 1; id <= catalogSize; id++) {
+                BookDto book = BenchmarkBooks.book(id);
+                // read from the database, every author is a string of its own
+                BookEntity entity = new BookEntity(book.getBookId(), book.getTitle(), new String(book.getAuthor()),
+                        book.getDescription(), book.getIsbn(), book.getVersion());
+                entities.add(entity);
+                // the mapper copies references, so each DTO shares the strings of its entity
+                books.add(new BookDto(entity.getBookId(), entity.getTitle(), entity.getAuthor(),
+                        entity.getDescription(), entity.getIsbn(), entity.getVersion()));
+            }
+            return List.of(entities, books);
+        });
+
+        long[] estimated = new long[1];
+        long snapshot = retained(() -> {
+            CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalogSize);
+            for (long id = 1; id <= catalogSize; id++) {
+                BookDto book = BenchmarkBooks.book(id);
+                builder.add(id, book.getTitle(), new String(book.getAuthor()), book.getDescription(),
+                        book.getIsbn(), book.getVersion());
+            }
+            CatalogSnapshot built = builder.build(0, 0);
+            estimated[0] = built.footprintBytes();
+            return built;
+        });
+
+        System.out.printf("%n%d books: entities and DTOs %d bytes per book, snapshot %d bytes per book "
+                        + "(estimated %d)%n", catalogSize, lists / catalogSize, snapshot / catalogSize,
+                estimated[0] / catalogSize);
+    }
+
+    private static long retained(Supplier<Object> allocation) {
+        long before = usedHeap();
+        Object retained = allocation.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,62 @@
+package dev.chiedo.bookapi.benchmark;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookSuggestionDto;
+import dev.chiedo.bookapi.suggest.SuggestionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Top 10 suggestions for prefixes of one to three words' worth of keystrokes, over an
+// index of millions of titles and authors. Sampled, so JMH reports the p99 and p99.9
+// latency. The size of the index is printed once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BookSuggestBenchmark {
+
+    @Param({"1000000", "4000000"})
+    private int entries;
+
+    // a single letter matches over a tenth of the index, the longest prefix a handful of entries
+    @Param({"f", "fall", "fall apa", "fall apart 12"})
+    private String prefix;
+
+    private SuggestionIndex index;
+
+    @Setup
+    public void setUp() {
+        SuggestionIndex.Builder builder = SuggestionIndex.builder();
+        for (long id = 1; id <= entries; id++) {
+            BookDto book = BenchmarkBooks.book(id);
+            // a few books per title, skewed so the weights differ
+            builder.add(book.getTitle(), BookSuggestionDto.Type.TITLE, 1 + (id * 7919) % 97 / 16);
+            if (id % 100 == 0) {
+                builder.add(book.getAuthor() + " " + id / 100, BookSuggestionDto.Type.AUTHOR, 1 + id % 13);
+            }
+        }
+        index = builder.build();
+
+        System.out.printf("%n%d titles and authors: %d bytes, %d bytes per entry%n", index.size(),
+                index.footprintBytes(), index.footprintBytes() / index.size());
+    }
+
+    @Benchmark
+    public List<BookSuggestionDto> suggest() {
+        return index.top(prefix, 10);
+    }
+}
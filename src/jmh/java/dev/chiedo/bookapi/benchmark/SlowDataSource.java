@@ -0,0 +1,66 @@
+package dev.chiedo.bookapi.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Delays every statement prepared on its connections, standing in for a database
+ * across the network. The delay is spent holding the pooled connection, as a real
+ * round trip would be.
+ */
+final class SlowDataSource extends DelegatingDataSource {
+
+    private final long latencyMillis;
+
+    private SlowDataSource(DataSource target, Duration latency) {
+        super(target);
+        this.latencyMillis = latency.toMillis();
+    }
+
+    /**
+     * Wraps the application's DataSource bean when added to a context before refresh.
+     */
+    static ApplicationContextInitializer<ConfigurableApplicationContext> inject(Duration latency) {
+        return context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof SlowDataSource)
+                        ? new SlowDataSource(dataSource, latency)
+                        : bean;
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return slow(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return slow(super.getConnection(username, password));
+    }
+
+    private Connection slow(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                        Thread.sleep(latencyMillis);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
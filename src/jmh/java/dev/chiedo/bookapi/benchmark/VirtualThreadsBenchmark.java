@@ -0,0 +1,94 @@
+package dev.chiedo.bookapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP throughput and latency of GET /api/v1/books with a delay injected into every
+ * database statement, served on Tomcat's platform-thread pool and on virtual threads.
+ * <p>
+ * 16 client threads keep a request each in flight against 8 Tomcat workers. The JDBC
+ * pool is larger than both, and the book cache is off, so in platform mode requests
+ * queue for a worker while in virtual-thread mode they only wait for the database.
+ * Both sides are scaled down so the server stays latency-bound rather than CPU-bound
+ * on a small machine; on bigger hosts raise them together, e.g.
+ * {@code -t 400 -p tomcatThreads=200}. Throughput is requests per millisecond; sample
+ * time gives the percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(16)
+public class VirtualThreadsBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"200"})
+    private int dbLatencyMillis;
+
+    // ignored in virtual-thread mode, where every request gets a thread of its own
+    @Param({"8"})
+    private int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest listBooks;
+
+    @Setup
+    public void setUp(BenchmarkParams benchmarkParams) {
+        // one connection per client and per worker, so neither mode waits for the pool
+        int poolSize = benchmarkParams.getThreads() + tomcatThreads;
+
+        context = BenchmarkBooks.startSeeded(1000,
+                List.of(SlowDataSource.inject(Duration.ofMillis(dbLatencyMillis))),
+                "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "books.cache.enabled=false");
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        listBooks = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/books?limit=10")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int listBooks() throws IOException, InterruptedException {
+        return client.send(listBooks, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,151 @@
+package dev.chiedo.bookapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles of a load test run, per operation and in total.
+ * Written as JSON with the full histograms attached (compressed, Base64), so runs can
+ * be compared later, or merged and re-cut at other percentiles with HdrHistogram.
+ */
+record LoadReport(Instant startedAt, Map<String, Object> settings, double elapsedSeconds, int maxInFlight,
+                  List<Endpoint> endpoints) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    static LoadReport of(Instant startedAt, Map<String, Object> settings, OpenModelDriver.Run run) {
+        double elapsedSeconds = run.elapsed().toNanos() / 1e9;
+        List<Endpoint> endpoints = new ArrayList<>();
+        Histogram allResponses = new Histogram(3);
+        Histogram allServices = new Histogram(3);
+        long allErrors = 0;
+
+        for (Map.Entry<Operation, OpenModelDriver.Recording> entry : run.recordings().entrySet()) {
+            OpenModelDriver.Recording recording = entry.getValue();
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            recording.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+
+            endpoints.add(Endpoint.of(entry.getKey().label(), recording.responseTime, recording.serviceTime,
+                    recording.errors.get(), statuses, elapsedSeconds));
+            allResponses.add(recording.responseTime);
+            allServices.add(recording.serviceTime);
+            allErrors += recording.errors.get();
+        }
+        endpoints.add(Endpoint.of("total", allResponses, allServices, allErrors, Map.of(), elapsedSeconds));
+
+        return new LoadReport(startedAt, settings, elapsedSeconds, run.maxInFlight(), endpoints);
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        OBJECT_MAPPER.writeValue(path.toFile(), this);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%nResponse time from when each request was due, in ms (service time in brackets)%n");
+        out.printf("%-8s %9s %7s %9s %17s %17s %17s %17s %10s  %s%n",
+                "endpoint", "requests", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max", "statuses");
+
+        for (Endpoint endpoint : endpoints) {
+            out.printf("%-8s %9d %7d %9.1f", endpoint.name(), endpoint.requests(), endpoint.errors(),
+                    endpoint.throughput());
+            for (String percentile : endpoint.responseMillis().keySet()) {
+                if (!percentile.equals("max")) {
+                    out.printf(" %8.2f (%6.2f)", endpoint.responseMillis().get(percentile),
+                            endpoint.serviceMillis().get(percentile));
+                }
+            }
+            out.printf(" %10.2f  %s%n", endpoint.responseMillis().get("max"),
+                    endpoint.statuses().isEmpty() ? "" : endpoint.statuses());
+        }
+
+        out.printf("%.1f s, at most %d requests in flight%n", elapsedSeconds, maxInFlight);
+    }
+
+    /**
+     * Prints throughput and p99 next to those of an earlier report.
+     */
+    void compare(Path baseline, PrintStream out) throws IOException {
+        JsonNode previous = OBJECT_MAPPER.readTree(baseline.toFile());
+        Map<String, JsonNode> previousEndpoints = new LinkedHashMap<>();
+        previous.path("endpoints").forEach(endpoint -> previousEndpoints.put(endpoint.path("name").asText(), endpoint));
+
+        out.printf("%nCompared with %s (%s)%n", baseline, previous.path("startedAt").asText());
+        out.printf("%-8s %21s %27s%n", "endpoint", "req/s", "p99 ms");
+
+        for (Endpoint endpoint : endpoints) {
+            JsonNode before = previousEndpoints.get(endpoint.name());
+            if (before == null) {
+                out.printf("%-8s (not in baseline)%n", endpoint.name());
+                continue;
+            }
+
+            double throughputBefore = before.path("throughput").asDouble();
+            double p99Before = before.path("responseMillis").path("p99").asDouble();
+            double p99 = endpoint.responseMillis().get("p99");
+
+            out.printf("%-8s %9.1f -> %9.1f %9.2f -> %9.2f (%+.0f%%)%n", endpoint.name(),
+                    throughputBefore, endpoint.throughput(), p99Before, p99, change(p99Before, p99));
+        }
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+
+    /**
+     * @param responseMillis percentiles of response time, from when each request was due
+     * @param serviceMillis  percentiles of service time, from when each request was sent
+     * @param statuses       number of responses per HTTP status, 0 for requests that got none
+     * @param histogram      the response time histogram in microseconds, compressed and Base64-encoded
+     */
+    record Endpoint(String name, long requests, long errors, double throughput,
+                    Map<String, Double> responseMillis, Map<String, Double> serviceMillis,
+                    Map<String, Long> statuses, String histogram) {
+
+        static Endpoint of(String name, Histogram responseTime, Histogram serviceTime, long errors,
+                           Map<String, Long> statuses, double elapsedSeconds) {
+            long requests = responseTime.getTotalCount();
+            return new Endpoint(name, requests, errors, requests / elapsedSeconds,
+                    percentiles(responseTime), percentiles(serviceTime), statuses, encode(responseTime));
+        }
+
+        private static Map<String, Double> percentiles(Histogram histogram) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                percentiles.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                        histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            percentiles.put("max", histogram.getMaxValue() / 1000.0);
+            return percentiles;
+        }
+
+        private static String encode(Histogram histogram) {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package dev.chiedo.bookapi.loadtest;
+
+import dev.chiedo.bookapi.BookApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the application on a random port against a seeded in-memory catalog and
+ * drives a mix of requests at it at a constant rate; see {@link OpenModelDriver}.
+ * Arguments are {@code name=value} pairs, all optional:
+ * <ul>
+ *     <li>{@code rate} requests per second (default 200)</li>
+ *     <li>{@code duration} of the measured run and {@code warmup} before it (60s and 15s)</li>
+ *     <li>{@code catalog} number of books seeded (20000)</li>
+ *     <li>{@code mix} relative weights of the operations, see {@link OperationMix}</li>
+ *     <li>{@code timeout} of a single request (10s)</li>
+ *     <li>{@code report} where the JSON report goes (target/loadtest/report-&lt;time&gt;.json)</li>
+ *     <li>{@code baseline} an earlier report to compare with</li>
+ *     <li>{@code app.<property>} passed to the application, e.g. {@code app.spring.threads.virtual.enabled=true}</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final String DEFAULT_MIX = "list:30,get:40,search:15,create:5,update:5,delete:5";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        List<String> appProperties = new ArrayList<>();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            if (arg.startsWith("app.")) {
+                appProperties.add(arg.substring("app.".length()));
+            } else {
+                arguments.put(arg.substring(0, equals), arg.substring(equals + 1));
+            }
+        }
+
+        double rate = Double.parseDouble(arguments.getOrDefault("rate", "200"));
+        Duration duration = DurationStyle.detectAndParse(arguments.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(arguments.getOrDefault("warmup", "15s"));
+        Duration timeout = DurationStyle.detectAndParse(arguments.getOrDefault("timeout", "10s"));
+        int catalogSize = Integer.parseInt(arguments.getOrDefault("catalog", "20000"));
+        OperationMix mix = OperationMix.parse(arguments.getOrDefault("mix", DEFAULT_MIX));
+        Instant startedAt = Instant.now();
+        Path reportPath = Path.of(arguments.getOrDefault("report", "target/loadtest/report-"
+                + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(startedAt) + ".json"));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", rate);
+        settings.put("duration", duration.toString());
+        settings.put("warmup", warmup.toString());
+        settings.put("catalog", catalogSize);
+        settings.put("mix", mix.toString());
+        settings.put("appProperties", appProperties);
+        settings.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        settings.put("javaVersion", Runtime.version().toString());
+
+        try (ConfigurableApplicationContext context = start(catalogSize, appProperties);
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            // ids come from a sequence allocated in blocks, so they are not contiguous
+            long[] bookIds = context.getBean(JdbcTemplate.class)
+                    .queryForList("SELECT book_id FROM books ORDER BY book_id", Long.class)
+                    .stream().mapToLong(Long::longValue).toArray();
+
+            HttpTarget target = new HttpTarget(URI.create("http://localhost:" + port), timeout, bookIds);
+            target.register(client);
+
+            OpenModelDriver driver = new OpenModelDriver(client, target, mix, rate);
+
+            System.out.printf("Warming up for %s at %.0f requests/s%n", warmup, rate);
+            driver.run(warmup);
+
+            System.out.printf("Measuring for %s at %.0f requests/s (%s)%n", duration, rate, mix);
+            LoadReport report = LoadReport.of(startedAt, settings, driver.run(duration));
+
+            report.print(System.out);
+            report.write(reportPath);
+            System.out.printf("Report written to %s%n", reportPath.toAbsolutePath());
+
+            if (arguments.containsKey("baseline")) {
+                report.compare(Path.of(arguments.get("baseline")), System.out);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int catalogSize, List<String> appProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                // all clients share one address; app.books.rate-limit.enabled=true to include the limits
+                "books.rate-limit.enabled=false"));
+        properties.addAll(appProperties);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookApiApplication.class)
+                .logStartupInfo(false)
+                .properties(properties.toArray(String[]::new))
+                .run();
+
+        LoadTestCatalog.seed(context.getBean(JdbcTemplate.class), catalogSize);
+
+        return context;
+    }
+
+    // Reads and updates go to the lower half of the catalog, deletes work down from the top.
+    private static final class HttpTarget implements Operation.Target {
+
+        private final URI base;
+        private final Duration timeout;
+        private final long[] bookIds;
+        private final int readable;
+        private final AtomicInteger nextDeletable;
+
+        private final String user = basic("loadtest-user", "loadtest");
+        private final String admin = basic("loadtest-admin", "loadtest");
+
+        private HttpTarget(URI base, Duration timeout, long[] bookIds) {
+            this.base = base;
+            this.timeout = timeout;
+            this.bookIds = bookIds;
+            this.readable = bookIds.length / 2;
+            this.nextDeletable = new AtomicInteger(bookIds.length - 1);
+        }
+
+        void register(HttpClient client) throws IOException {
+            for (String[] account : List.of(new String[]{"loadtest-user", "ROLE_USER"},
+                    new String[]{"loadtest-admin", "ROLE_ADMIN"})) {
+                HttpRequest request = json("/api/users/register")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + account[0]
+                                + "\",\"password\":\"loadtest\",\"authority\":\"" + account[1] + "\"}"))
+                        .build();
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while registering " + account[0], e);
+                }
+            }
+        }
+
+        @Override
+        public HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(base.resolve(path)).timeout(timeout);
+        }
+
+        @Override
+        public String user() {
+            return user;
+        }
+
+        @Override
+        public String admin() {
+            return admin;
+        }
+
+        @Override
+        public long readableId() {
+            return bookIds[ThreadLocalRandom.current().nextInt(readable)];
+        }
+
+        // once the upper half is used up, deletes answer 404 and count as errors
+        @Override
+        public long deletableId() {
+            return bookIds[Math.max(nextDeletable.getAndDecrement(), readable)];
+        }
+
+        private static String basic(String username, String password) {
+            return "Basic " + Base64.getEncoder()
+                    .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package dev.chiedo.bookapi.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic books: the seeded catalog and the bodies of create and update requests.
+ */
+final class LoadTestCatalog {
+
+    private static final String[] AUTHORS = {
+            "Chinua Achebe", "Margaret Ogolla", "Barack Obama", "George Orwell", "Ngugi wa Thiong'o",
+            "Chimamanda Ngozi Adichie", "Wole Soyinka", "Toni Morrison", "Haruki Murakami", "Jane Austen"
+    };
+
+    private static final String[] WORDS = {
+            "river", "source", "things", "fall", "apart", "dreams", "father", "animal", "farm", "grain",
+            "wheat", "petals", "blood", "devil", "cross", "purple", "hibiscus", "half", "yellow", "sun"
+    };
+
+    // ISBNs of created books, clear of the seeded 978- range
+    private static final AtomicLong CREATED = new AtomicLong();
+
+    private LoadTestCatalog() {
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, int catalogSize) {
+        int batchSize = 1000;
+        for (int from = 1; from <= catalogSize; from += batchSize) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            for (long n = from; n < Math.min(from + batchSize, catalogSize + 1L); n++) {
+                rows.add(new Object[]{title(n), author(n), description(n), String.format("978-%010d", n)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO books (title, author, description, isbn) VALUES (?, ?, ?, ?)", rows);
+        }
+    }
+
+    static String randomWord() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+
+    static String newBookJson() {
+        long n = CREATED.incrementAndGet();
+        return bookJson(title(n), author(n), description(n), String.format("979-%010d", n));
+    }
+
+    // one ISBN per book, apart from the seeded and created ones, so updates never collide
+    static String updatedBookJson(long bookId) {
+        long n = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+        return bookJson(title(n), author(n), description(n), String.format("977-%010d", bookId));
+    }
+
+    private static String bookJson(String title, String author, String description, String isbn) {
+        return "{\"title\":\"" + title + "\",\"author\":\"" + author
+                + "\",\"description\":\"" + description + "\",\"isbn\":\"" + isbn + "\"}";
+    }
+
+    private static String title(long n) {
+        String word = WORDS[(int) (n % WORDS.length)];
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1) + " "
+                + WORDS[(int) ((n / WORDS.length) % WORDS.length)] + " " + (n % 100_000);
+    }
+
+    private static String author(long n) {
+        return AUTHORS[(int) (n % AUTHORS.length)];
+    }
+
+    private static String description(long n) {
+        return "A synthetic description about " + WORDS[(int) ((n * 7) % WORDS.length)]
+                + " and " + WORDS[(int) ((n * 13) % WORDS.length)];
+    }
+}
@@ -0,0 +1,133 @@
+package dev.chiedo.bookapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant arrival rate, each on a virtual thread of its own,
+ * whether or not earlier ones have been answered (an open model, like independent
+ * users). Response time is measured from when a request was due to be sent, not
+ * from when it actually was, so a stall on either side shows up in the latencies
+ * of every request it delayed instead of being hidden (coordinated omission).
+ */
+final class OpenModelDriver {
+
+    private final HttpClient client;
+    private final Operation.Target target;
+    private final OperationMix mix;
+    private final double requestsPerSecond;
+
+    OpenModelDriver(HttpClient client, Operation.Target target, OperationMix mix, double requestsPerSecond) {
+        this.client = client;
+        this.target = target;
+        this.mix = mix;
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    Run run(Duration duration) {
+        Map<Operation, Recording> recordings = new EnumMap<>(Operation.class);
+        mix.weights().keySet().forEach(operation -> recordings.put(operation, new Recording()));
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long end = start + duration.toNanos();
+
+            for (long i = 0; ; i++) {
+                long due = start + i * intervalNanos;
+                if (due - end >= 0) {
+                    break;
+                }
+
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Operation operation = mix.pick();
+                Recording recording = recordings.get(operation);
+
+                executor.execute(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        send(operation, recording, due);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            // closing the executor waits for the requests still in flight
+        }
+
+        return new Run(recordings, Duration.ofNanos(System.nanoTime() - start), maxInFlight.get());
+    }
+
+    private void send(Operation operation, Recording recording, long due) {
+        int status;
+        long sent = System.nanoTime();
+
+        try {
+            HttpRequest request = operation.request(target);
+            sent = System.nanoTime();
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // timeouts and refused connections
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long done = System.nanoTime();
+        recording.record(done - due, done - sent, status, operation.succeeded(status));
+    }
+
+    /**
+     * @param elapsed     from the first request being due until the last one was answered
+     * @param maxInFlight the most requests awaiting an answer at once
+     */
+    record Run(Map<Operation, Recording> recordings, Duration elapsed, int maxInFlight) {
+    }
+
+    /**
+     * What one operation saw: response time from when each request was due, service
+     * time from when it was sent, both in microseconds, and the count of each status
+     * (0 for requests that got no response).
+     */
+    static final class Recording {
+
+        final Histogram responseTime = new ConcurrentHistogram(3);
+        final Histogram serviceTime = new ConcurrentHistogram(3);
+        final AtomicLong errors = new AtomicLong();
+        final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+
+        private void record(long responseNanos, long serviceNanos, int status, boolean succeeded) {
+            responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (!succeeded) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
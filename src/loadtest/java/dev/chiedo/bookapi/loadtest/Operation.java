@@ -0,0 +1,106 @@
+package dev.chiedo.bookapi.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Locale;
+
+/**
+ * The kinds of request a load test mixes, each with the status that counts as success.
+ */
+enum Operation {
+
+    LIST(200) {
+        @Override
+        HttpRequest request(Target target) {
+            // anonymous, like most traffic to the public catalog
+            return target.get("/api/v1/books?limit=20").build();
+        }
+    },
+    GET(200) {
+        @Override
+        HttpRequest request(Target target) {
+            return target.get("/api/v1/books/" + target.readableId()).header("Authorization", target.user()).build();
+        }
+    },
+    SEARCH(200) {
+        @Override
+        HttpRequest request(Target target) {
+            return target.get("/api/v1/books/search?q=" + LoadTestCatalog.randomWord())
+                    .header("Authorization", target.user())
+                    .build();
+        }
+    },
+    CREATE(201) {
+        @Override
+        HttpRequest request(Target target) {
+            return target.json("/api/v1/books")
+                    .header("Authorization", target.user())
+                    .POST(HttpRequest.BodyPublishers.ofString(LoadTestCatalog.newBookJson()))
+                    .build();
+        }
+    },
+    UPDATE(204) {
+        @Override
+        HttpRequest request(Target target) {
+            long bookId = target.readableId();
+            return target.json("/api/v1/books/" + bookId)
+                    .header("Authorization", target.user())
+                    .PUT(HttpRequest.BodyPublishers.ofString(LoadTestCatalog.updatedBookJson(bookId)))
+                    .build();
+        }
+    },
+    DELETE(204) {
+        @Override
+        HttpRequest request(Target target) {
+            return target.request("/api/v1/books/" + target.deletableId())
+                    .header("Authorization", target.admin())
+                    .DELETE()
+                    .build();
+        }
+    };
+
+    private final int expectedStatus;
+
+    Operation(int expectedStatus) {
+        this.expectedStatus = expectedStatus;
+    }
+
+    abstract HttpRequest request(Target target);
+
+    boolean succeeded(int status) {
+        return status == expectedStatus;
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Operation fromLabel(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Where requests go and which books they touch: reads and updates pick from the
+     * lower half of the seeded catalog, deletes work down from the top, so no request
+     * meets a book another one has deleted.
+     */
+    interface Target {
+
+        HttpRequest.Builder request(String path);
+
+        default HttpRequest.Builder get(String path) {
+            return request(path).GET();
+        }
+
+        default HttpRequest.Builder json(String path) {
+            return request(path).header("Content-Type", "application/json");
+        }
+
+        String user();
+
+        String admin();
+
+        long readableId();
+
+        long deletableId();
+    }
+}
@@ -0,0 +1,154 @@
+package dev.chiedo.bookapi.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time to first successful request: from launching a JVM running the
+ * application until {@code GET /api/v1/books} first answers 200. Each mode is started
+ * {@code runs} times in a fresh JVM. Arguments are {@code name=value} pairs, all optional:
+ * <ul>
+ *     <li>{@code modes} any of {@code jar} (the packaged jar as is), {@code aot} and
+ *     {@code aot-cds} (the fast-startup profile's extracted jar, without and with its CDS
+ *     archive); default all three</li>
+ *     <li>{@code runs} per mode (5)</li>
+ *     <li>{@code jar} the packaged jar (set by the loadtest profile)</li>
+ *     <li>{@code extracted} the fast-startup profile's output (target/fast-startup)</li>
+ *     <li>{@code timeout} for one start (2m)</li>
+ *     <li>{@code app.<property>} passed to the application</li>
+ * </ul>
+ * The applications' output goes to {@code target/startup/}.
+ */
+public final class StartupTime {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    // the CDS archive only matches the class path it was trained with, the jar's name
+    // relative to the extracted directory
+    private record Launch(List<String> command, Path directory) {
+    }
+
+    private StartupTime() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        List<String> appProperties = new ArrayList<>();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            if (arg.startsWith("app.")) {
+                appProperties.add("--" + arg.substring("app.".length()));
+            } else {
+                arguments.put(arg.substring(0, equals), arg.substring(equals + 1));
+            }
+        }
+
+        List<String> modes = List.of(arguments.getOrDefault("modes", "jar,aot,aot-cds").split(","));
+        int runs = Integer.parseInt(arguments.getOrDefault("runs", "5"));
+        Path jar = Path.of(arguments.getOrDefault("jar", System.getProperty("loadtest.jar", "")));
+        Path extracted = Path.of(arguments.getOrDefault("extracted", "target/fast-startup"));
+        Duration timeout = DurationStyle.detectAndParse(arguments.getOrDefault("timeout", "2m"));
+        Path logs = Files.createDirectories(Path.of("target/startup")).toAbsolutePath();
+
+        Map<String, long[]> results = new LinkedHashMap<>();
+
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()) {
+            for (String mode : modes) {
+                Launch launch = launch(mode, jar, extracted);
+                long[] millis = new long[runs];
+
+                for (int run = 0; run < runs; run++) {
+                    millis[run] = measure(client, launch, appProperties, timeout,
+                            logs.resolve(mode + "-" + run + ".log")).toMillis();
+                    System.out.printf("%s run %d: %d ms%n", mode, run + 1, millis[run]);
+                }
+                results.put(mode, millis);
+            }
+        }
+
+        System.out.printf("%n%-10s %8s %8s %8s%n", "mode", "min", "median", "max");
+        results.forEach((mode, millis) -> {
+            Arrays.sort(millis);
+            System.out.printf("%-10s %6d ms %6d ms %6d ms%n", mode, millis[0], millis[millis.length / 2],
+                    millis[millis.length - 1]);
+        });
+    }
+
+    private static Launch launch(String mode, Path jar, Path extracted) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String extractedJar = jar.getFileName().toString();
+
+        return switch (mode) {
+            case "jar" -> new Launch(List.of(java, "-jar", jar.toAbsolutePath().toString()), null);
+            case "aot" -> new Launch(List.of(java, "-Dspring.aot.enabled=true", "-jar", extractedJar), extracted);
+            case "aot-cds" -> new Launch(List.of(java, "-XX:SharedArchiveFile=application.jsa",
+                    "-Dspring.aot.enabled=true", "-jar", extractedJar), extracted);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", expected jar, aot or aot-cds");
+        };
+    }
+
+    private static Duration measure(HttpClient client, Launch launch, List<String> appProperties,
+                                    Duration timeout, Path log) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(launch.command());
+        arguments.add("--server.port=" + port);
+        arguments.addAll(appProperties);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/books?limit=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .directory(launch.directory() == null ? null : launch.directory().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            while (System.nanoTime() - start < timeout.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return Duration.ofNanos(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+            throw new IllegalStateException("No successful request within " + timeout + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -2,12 +2,18 @@ package dev.chiedo.bookapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class BookApiApplication {
 
+	// startup steps kept for /actuator/startup and the StartupReport log; later ones are dropped
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(BookApiApplication.class, args);
+		SpringApplication application = new SpringApplication(BookApiApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,156 @@
+package dev.chiedo.bookapi.changes;
+
+import dev.chiedo.bookapi.model.dto.BookChangesDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves {@link BookChangeLog} to polling readers. The newest sequence number is
+ * kept in memory, so a reader that is up to date costs no query: it gets an empty
+ * answer straight away, or waits until something newer commits.
+ * <p>
+ * Commits made by this instance wake waiting readers immediately, those of other
+ * instances after at most the refresh interval.
+ */
+@Component
+public class BookChangeFeed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookChangeFeed.class);
+
+    private final BookChangeLog changeLog;
+    private final TaskExecutor taskExecutor;
+    private final long refreshIntervalNanos;
+    private final Duration retention;
+    private final int compactionBatchSize;
+
+    private final AtomicLong latest = new AtomicLong();
+    private final AtomicLong refreshedAt;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // constructor injection
+    public BookChangeFeed(BookChangeLog changeLog,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                          @Value("${books.changes.refresh-interval:1s}") Duration refreshInterval,
+                          @Value("${books.changes.retention:7d}") Duration retention,
+                          @Value("${books.changes.compaction-batch-size:1000}") int compactionBatchSize) {
+        this.changeLog = changeLog;
+        this.taskExecutor = taskExecutor;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.retention = retention;
+        this.compactionBatchSize = compactionBatchSize;
+        this.refreshedAt = new AtomicLong(System.nanoTime() - refreshIntervalNanos - 1);
+    }
+
+    public long latest() {
+        long now = System.nanoTime();
+        long last = refreshedAt.get();
+
+        // one caller refreshes, the others keep answering from memory meanwhile
+        if (now - last > refreshIntervalNanos && refreshedAt.compareAndSet(last, now)) {
+            advance(changeLog.latest());
+        }
+
+        return latest.get();
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code since}. When there are none yet, the
+     * result is completed by the first commit within {@code wait}, or empty after it.
+     * A {@link ChangesCompactedException} is set as the error result when changes
+     * after {@code since} are gone.
+     */
+    public DeferredResult<BookChangesDto> poll(long since, int limit, Duration wait) {
+        DeferredResult<BookChangesDto> result = new DeferredResult<>(wait.toMillis(), BookChangesDto.none(since));
+
+        if (since < latest()) {
+            complete(result, since, limit);
+            return result;
+        }
+
+        if (wait.isZero()) {
+            result.setResult(BookChangesDto.none(since));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+
+        // a commit between the check above and registering would not have woken us
+        if (since < latest.get() && waiters.remove(waiter)) {
+            taskExecutor.execute(() -> complete(result, since, limit));
+        }
+
+        return result;
+    }
+
+    @EventListener
+    void onChangesCommitted(BookChangesCommitted event) {
+        advance(event.latest());
+    }
+
+    // picks up commits of other instances for readers waiting here
+    @Scheduled(fixedDelayString = "${books.changes.refresh-interval:1s}")
+    void refreshForWaiters() {
+        if (!waiters.isEmpty()) {
+            latest();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${books.changes.compaction-interval:1h}",
+            initialDelayString = "${books.changes.compaction-interval:1h}")
+    void compact() {
+        int removed = changeLog.compact(Instant.now().minus(retention), compactionBatchSize);
+
+        if (removed > 0) {
+            LOGGER.info("Compacted {} book changes older than {}", removed, retention);
+        }
+    }
+
+    private void advance(long seq) {
+        if (latest.accumulateAndGet(seq, Math::max) != seq) {
+            return;
+        }
+
+        for (Waiter waiter : waiters) {
+            if (waiter.since < seq && waiters.remove(waiter)) {
+                // off the committing thread, which is still answering its own request
+                taskExecutor.execute(() -> complete(waiter.result, waiter.since, waiter.limit));
+            }
+        }
+    }
+
+    private void complete(DeferredResult<BookChangesDto> result, long since, int limit) {
+        try {
+            // one more than asked for tells whether there is more
+            List<BookChangesDto.Change> changes = changeLog.readAfter(since, limit + 1);
+            boolean more = changes.size() > limit;
+
+            if (more) {
+                changes = changes.subList(0, limit);
+            }
+
+            long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).seq();
+            result.setResult(new BookChangesDto(changes, next, more));
+        } catch (RuntimeException e) {
+            result.setErrorResult(e);
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<BookChangesDto> result) {
+    }
+}
@@ -0,0 +1,164 @@
+package dev.chiedo.bookapi.changes;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookChangesDto;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.CatalogVersion;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code book_changes} table: every book change is appended in the
+ * transaction that makes it, so a change is logged if and only if it commits.
+ * <p>
+ * Sequence numbers are drawn just before commit, after {@link CatalogVersion}
+ * has locked the catalog row, so they become visible in increasing order and a
+ * reader never skips a change that commits later with a smaller number.
+ */
+@Component
+public class BookChangeLog {
+
+    private static final String NEXT_SEQS = "SELECT NEXT VALUE FOR book_changes_seq FROM SYSTEM_RANGE(1, ?)";
+    private static final String INSERT = "INSERT INTO book_changes "
+            + "(seq, type, book_id, title, author, description, isbn, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_AFTER = "SELECT seq, type, book_id, title, author, description, isbn, "
+            + "version, changed_at FROM book_changes WHERE seq > ? ORDER BY seq FETCH FIRST ? ROWS ONLY";
+    private static final String SELECT_LATEST = "SELECT COALESCE(MAX(seq), 0) FROM book_changes";
+    private static final String SELECT_OLDEST = "SELECT MIN(seq) FROM book_changes";
+    private static final String SELECT_LATEST_BEFORE = "SELECT MAX(seq) FROM book_changes WHERE changed_at < ?";
+    private static final String DELETE_BEFORE = "DELETE FROM book_changes WHERE seq < ? FETCH FIRST ? ROWS ONLY";
+
+    private static final RowMapper<BookChangesDto.Change> CHANGE_ROW_MAPPER = (rs, rowNum) -> {
+        BookChangedEvent.Type type = BookChangedEvent.Type.valueOf(rs.getString("type"));
+        long bookId = rs.getLong("book_id");
+
+        BookDto book = type == BookChangedEvent.Type.DELETED ? null : new BookDto(bookId,
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getString("description"),
+                rs.getString("isbn"),
+                rs.getLong("version"));
+
+        return new BookChangesDto.Change(rs.getLong("seq"), type, bookId, book,
+                rs.getObject("changed_at", OffsetDateTime.class).toInstant());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // constructor injection
+    public BookChangeLog(JdbcTemplate jdbcTemplate,
+                         CatalogVersion catalogVersion,
+                         ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogVersion = catalogVersion;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // runs inside the writing transaction; the rows are inserted together before it commits
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        List<BookChangedEvent> pending =
+                catalogVersion.pendingUntilCommit(this, ArrayList::new, PendingChanges::new);
+        pending.add(event);
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code since}, oldest first.
+     *
+     * @throws ChangesCompactedException when changes after {@code since} have been compacted away
+     */
+    @Transactional(readOnly = true)
+    public List<BookChangesDto.Change> readAfter(long since, int limit) {
+        Long oldest = jdbcTemplate.queryForObject(SELECT_OLDEST, Long.class);
+
+        // compaction keeps the newest change it could have removed, so seeing
+        // oldest - 1 means the reader has missed nothing
+        if (oldest != null && since < oldest - 1) {
+            throw new ChangesCompactedException(since, oldest);
+        }
+
+        return jdbcTemplate.query(SELECT_AFTER, CHANGE_ROW_MAPPER, since, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public long latest() {
+        return jdbcTemplate.queryForObject(SELECT_LATEST, Long.class);
+    }
+
+    /**
+     * Removes changes made before {@code cutoff}, in batches of at most
+     * {@code batchSize} rows, always keeping the newest of them.
+     *
+     * @return the number of changes removed
+     */
+    public int compact(Instant cutoff, int batchSize) {
+        Long keep = jdbcTemplate.queryForObject(SELECT_LATEST_BEFORE, Long.class,
+                cutoff.atOffset(ZoneOffset.UTC));
+
+        if (keep == null) {
+            return 0;
+        }
+
+        int removed = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_BEFORE, keep, batchSize);
+            removed += batch;
+        } while (batch == batchSize);
+
+        return removed;
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<BookChangedEvent> changes;
+
+        private long last;
+
+        private PendingChanges(List<BookChangedEvent> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            List<Long> seqs = jdbcTemplate.queryForList(NEXT_SEQS, Long.class, changes.size());
+            seqs.sort(null);
+            List<Object[]> rows = new ArrayList<>(changes.size());
+
+            for (int i = 0; i < changes.size(); i++) {
+                BookChangedEvent change = changes.get(i);
+                BookDto book = change.after();
+
+                rows.add(new Object[]{seqs.get(i), change.type().name(), change.bookId(),
+                        book == null ? null : book.getTitle(),
+                        book == null ? null : book.getAuthor(),
+                        book == null ? null : book.getDescription(),
+                        book == null ? null : book.getIsbn(),
+                        book == null ? null : book.getVersion()});
+            }
+
+            jdbcTemplate.batchUpdate(INSERT, rows, new int[]{Types.BIGINT, Types.VARCHAR, Types.BIGINT,
+                    Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT});
+            last = seqs.get(seqs.size() - 1);
+        }
+
+        @Override
+        public void afterCommit() {
+            eventPublisher.publishEvent(new BookChangesCommitted(last));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package dev.chiedo.bookapi.changes;
+
+/**
+ * Published by {@link BookChangeLog} once a transaction's changes have committed.
+ *
+ * @param latest the highest sequence number among them
+ */
+record BookChangesCommitted(long latest) {
+}
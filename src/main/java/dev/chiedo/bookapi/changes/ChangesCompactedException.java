@@ -0,0 +1,12 @@
+package dev.chiedo.bookapi.changes;
+
+/**
+ * Thrown when a reader asks for changes that compaction has already removed; it
+ * has to start over from a fresh copy of the catalog.
+ */
+public class ChangesCompactedException extends RuntimeException {
+
+    public ChangesCompactedException(long since, long oldest) {
+        super("Changes after " + since + " have been compacted, the oldest kept is " + oldest);
+    }
+}
@@ -0,0 +1,37 @@
+package dev.chiedo.bookapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.Executors;
+
+// Caffeine evicts by frequency and recency (W-TinyLFU); cache metrics such as
+// cache.gets{result=hit|miss} and cache.size are published for every named cache.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // A synchronous Caffeine cache loads inside ConcurrentHashMap.compute, whose bin
+    // lock is a monitor: a virtual thread waiting on the database there pins its
+    // carrier. In async mode the map only holds a future, the load runs on a virtual
+    // thread of its own and callers park on the future instead.
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public CacheManagerCustomizer<CaffeineCacheManager> asyncCaffeineCacheManager(CacheProperties cacheProperties) {
+        return cacheManager -> {
+            String spec = cacheProperties.getCaffeine().getSpec();
+            Caffeine<Object, Object> caffeine = StringUtils.hasText(spec) ? Caffeine.from(spec) : Caffeine.newBuilder();
+
+            cacheManager.setCaffeine(caffeine.executor(Executors.newVirtualThreadPerTaskExecutor()));
+            cacheManager.setAsyncCacheMode(true);
+        };
+    }
+}
@@ -2,6 +2,7 @@ package dev.chiedo.bookapi.config;
 
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,6 +10,7 @@ import org.springframework.context.annotation.Configuration;
 public class MapperConfig {
 
     @Bean
+    @ConditionalOnProperty(name = "books.mapper", havingValue = "modelmapper")
     public ModelMapper modelMapper() {
         ModelMapper modelMapper = new ModelMapper();
 
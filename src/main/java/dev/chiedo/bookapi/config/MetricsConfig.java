@@ -0,0 +1,38 @@
+package dev.chiedo.bookapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.mapper.TimedMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+// Service methods and the user lookup are timed with @Timed; the meters below sit on
+// paths too hot for the aspect. Histograms are enabled by meter name prefix in
+// application.properties and scraped from /actuator/prometheus.
+@Configuration
+public class MetricsConfig {
+
+    // whichever implementation books.mapper selects
+    @Bean
+    @ConditionalOnProperty(name = "books.metrics.mapper.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor timedMapperPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof IMapper<?, ?> mapper ? new TimedMapper<>(mapper, meterRegistry.getObject()) : bean;
+            }
+        };
+    }
+
+    // replaces the converter Spring Boot would register
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
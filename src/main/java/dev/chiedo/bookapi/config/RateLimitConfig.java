@@ -0,0 +1,47 @@
+package dev.chiedo.bookapi.config;
+
+import dev.chiedo.bookapi.ratelimit.AuthenticationFailureLimitFilter;
+import dev.chiedo.bookapi.ratelimit.RateLimitFilter;
+import dev.chiedo.bookapi.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// The filters run inside the security filter chain (see SecurityConfig), around
+// authentication; they are kept out of the servlet filter chain, which Boot would
+// otherwise register every Filter bean in.
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "books.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new RateLimitFilter(properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public AuthenticationFailureLimitFilter authenticationFailureLimitFilter(RateLimitProperties properties,
+                                                                             MeterRegistry meterRegistry) {
+        return new AuthenticationFailureLimitFilter(properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuthenticationFailureLimitFilter> authenticationFailureLimitFilterRegistration(
+            AuthenticationFailureLimitFilter authenticationFailureLimitFilter) {
+        FilterRegistrationBean<AuthenticationFailureLimitFilter> registration =
+                new FilterRegistrationBean<>(authenticationFailureLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,10 @@
+package dev.chiedo.bookapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background refresh and compaction of the book change feed
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
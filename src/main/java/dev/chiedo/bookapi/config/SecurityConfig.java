@@ -1,15 +1,27 @@
 package dev.chiedo.bookapi.config;
 
+import dev.chiedo.bookapi.ratelimit.AuthenticationFailureLimitFilter;
+import dev.chiedo.bookapi.ratelimit.RateLimitFilter;
+import dev.chiedo.bookapi.user.AuthenticationCache;
+import dev.chiedo.bookapi.user.CachingAuthenticationProvider;
+import dev.chiedo.bookapi.user.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 
 @Configuration
@@ -17,13 +29,26 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain SecurityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain SecurityFilterChain(HttpSecurity http,
+                                                   AuthenticationManager authenticationManager,
+                                                   ObjectProvider<AuthenticationFailureLimitFilter> failureLimitFilter,
+                                                   ObjectProvider<RateLimitFilter> rateLimitFilter) throws Exception {
+        // before authentication, so password guesses are refused without checking them
+        failureLimitFilter.ifAvailable(filter -> http.addFilterBefore(filter, BasicAuthenticationFilter.class));
+        // after authentication, so limits apply per user where there is one
+        rateLimitFilter.ifAvailable(filter -> http.addFilterAfter(filter, BasicAuthenticationFilter.class));
+
         http
+                .authenticationManager(authenticationManager)
                 .httpBasic(Customizer.withDefaults()) // Default Basic auth config
                 .csrf(configurer -> configurer.disable()) // To allow POST requests via Postman
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/v1/books/import", "/api/v1/books/import/**").hasRole("ADMIN")
+                        .requestMatchers("/api/v1/books/stats/verify", "/api/v1/books/stats/rebuild").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/v1/books").hasRole("USER")
+                        .requestMatchers(HttpMethod.POST, "/api/v1/books/batch").hasRole("USER")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/books/*").hasRole("USER")
+                        .requestMatchers(HttpMethod.PATCH, "/api/v1/books/*").hasRole("USER")
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/books/*").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/users").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/actuator/**").hasRole("ADMIN") // Monitoring app health
@@ -35,7 +60,22 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
+    }
+
+    // set on the filter chain rather than published as an AuthenticationProvider bean, which
+    // Spring Security would add to its global AuthenticationManager next to the UserDetailsService
+    @Bean
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
+                                                       PasswordEncoder passwordEncoder,
+                                                       AuthenticationCache authenticationCache,
+                                                       MeterRegistry meterRegistry) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+
+        // skips the user lookup and BCrypt verify for recently verified credentials
+        return new ProviderManager(
+                new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache, meterRegistry));
     }
 }
@@ -0,0 +1,12 @@
+package dev.chiedo.bookapi.controller;
+
+/**
+ * Thrown by handlers that cannot answer with a {@code ResponseEntity} themselves, such
+ * as the asynchronous ones, when the request is invalid.
+ */
+class BadRequestException extends RuntimeException {
+
+    BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,24 @@
 package dev.chiedo.bookapi.controller;
 
+import dev.chiedo.bookapi.changes.BookChangeFeed;
+import dev.chiedo.bookapi.changes.ChangesCompactedException;
+import dev.chiedo.bookapi.model.dto.BookBatchResult;
+import dev.chiedo.bookapi.model.dto.BookChangesDto;
 import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.model.dto.BookSearchPageDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.projection.BookProjection;
+import dev.chiedo.bookapi.projection.BookProjectionPage;
+import dev.chiedo.bookapi.search.BookSearchService;
+import dev.chiedo.bookapi.service.BookExportService;
 import dev.chiedo.bookapi.service.BookService;
+import dev.chiedo.bookapi.web.BookJsonCache;
+import dev.chiedo.bookapi.web.BookMediaTypes;
+import dev.chiedo.bookapi.web.CachedJson;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,24 +27,50 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.net.URI;
 
 
@@ -39,31 +82,254 @@ public class BookController {
 
     private final BookService bookService;
 
+    private final BookExportService bookExportService;
+
+    private final BookSearchService bookSearchService;
+
+    private final BookChangeFeed bookChangeFeed;
+
+    private final BookJsonCache bookJsonCache;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    private final Validator validator;
+
+    private final int defaultPageLimit;
+
+    private final int maxPageLimit;
+
+    private final int maxBatchSize;
+
+    private final Duration maxChangesWait;
+
     // constructor injection
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService,
+                          BookExportService bookExportService,
+                          BookSearchService bookSearchService,
+                          BookChangeFeed bookChangeFeed,
+                          BookJsonCache bookJsonCache,
+                          ContentNegotiationManager contentNegotiationManager,
+                          Validator validator,
+                          @Value("${books.page.default-limit:100}") int defaultPageLimit,
+                          @Value("${books.page.max-limit:1000}") int maxPageLimit,
+                          @Value("${books.batch.max-size:1000}") int maxBatchSize,
+                          @Value("${books.changes.max-wait:30s}") Duration maxChangesWait) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
+        this.bookSearchService = bookSearchService;
+        this.bookChangeFeed = bookChangeFeed;
+        this.bookJsonCache = bookJsonCache;
+        this.contentNegotiationManager = contentNegotiationManager;
+        this.validator = validator;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+        this.maxBatchSize = maxBatchSize;
+        this.maxChangesWait = maxChangesWait;
     }
 
-    @GetMapping
-    @Operation(summary = "Returns all existing books")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BookMediaTypes.APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Returns a page of books",
+            description = "Pages are addressed with an opaque cursor. Without limit, a page holds "
+                    + "books.page.default-limit books (100 by default); the whole catalog is no longer "
+                    + "returned at once, see /export for that. When more books exist, "
+                    + "the response carries a Link header with rel=\"next\". The ETag changes whenever "
+                    + "any book does, so polling clients should send If-None-Match. "
+                    + "Send Accept: application/cbor or application/x-jackson-smile for a binary body. "
+                    + "With fields, only the named fields of each book are read and returned.")
     @ApiResponses(
             value = {
                     @ApiResponse(
                             responseCode = "200",
-                            description = "Get all books",
+                            description = "Get a page of books",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = BookDto.class))),
                     @ApiResponse(
-                            responseCode = "404",
-                            description = "No books found",
+                            responseCode = "304",
+                            description = "The catalog has not changed since the ETag in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid limit, sort, cursor or fields",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<?> getAllBooks(
+            @Parameter(description = "maximum number of books to return")
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @Parameter(description = "cursor taken from the next link of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @Parameter(description = "sort order, either id or title (ignored when a cursor is given)")
+            @RequestParam(name = "sort", defaultValue = "id") String sort,
+            @Parameter(description = "comma-separated fields to return, such as bookId,title,author (all by default)")
+            @RequestParam(name = "fields", required = false) String fields,
+            NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+
+        int pageLimit = limit == null ? defaultPageLimit : limit;
+
+        if (pageLimit < 1 || pageLimit > maxPageLimit) {
+            LOGGER.debug("Rejected page limit {}", pageLimit);
+            return ResponseEntity.badRequest().build();
+        }
+
+        BookCursor cursor;
+        BookSort bookSort;
+        Set<BookField> bookFields;
+        try {
+            cursor = after == null ? null : BookCursor.decode(after);
+            bookSort = cursor == null ? BookSort.fromParameter(sort) : cursor.sort();
+            bookFields = projection(fields);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Rejected page request with sort {}, cursor {} and fields {}", sort, after, fields);
+            return ResponseEntity.badRequest().build();
+        }
+
+        MediaType format = BookMediaTypes.negotiate(contentNegotiationManager, request);
+        boolean cached = bookFields == null && format.equals(MediaType.APPLICATION_JSON);
+
+        // read before the page, so a change made meanwhile gets a newer ETag
+        long catalogVersion = bookService.catalogVersion();
+
+        if (notModified(request, catalogVersion, format, cached)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (bookFields != null) {
+            BookProjectionPage page = bookService.findPage(bookSort, cursor, pageLimit, bookFields);
+
+            page.nextCursor().ifPresent(next -> response.header(HttpHeaders.LINK, nextLink(next, pageLimit)));
+
+            return converted(response, format, catalogVersion).body(page.books());
+        }
+
+        if (!cached) {
+            BookPage page = bookService.findPage(bookSort, cursor, pageLimit);
+
+            page.nextCursor().ifPresent(next -> response.header(HttpHeaders.LINK, nextLink(next, pageLimit)));
+
+            return converted(response, format, catalogVersion).body(page.books());
+        }
+
+        CachedJson page = bookJsonCache.page(catalogVersion, bookSort, cursor, pageLimit);
+
+        if (page.next() != null) {
+            response.header(HttpHeaders.LINK, nextLink(page.next(), pageLimit));
+        }
+
+        return json(response, page, request);
+    }
+
+    private static String nextLink(BookCursor next, int limit) {
+        String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", next.encode())
+                .replaceQueryParam("limit", limit)
+                .replaceQueryParam("sort")
+                .toUriString();
+
+        return "<" + uri + ">; rel=\"next\"";
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Streams the whole catalog as newline-delimited JSON")
+    @ApiResponse(
+            responseCode = "200",
+            description = "One book per line, written while the catalog is read",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = BookDto.class)))
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = outputStream -> {
+            long count = bookExportService.exportNdjson(outputStream);
+            LOGGER.info("Exported {} books", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Full-text search over title, author and description",
+            description = "Results are ranked with BM25; title matches weigh more than author matches, "
+                    + "which weigh more than description matches.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "A page of matching books, best match first",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookSearchPageDto.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Blank query or invalid page",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<BookSearchPageDto> searchBooks(
+            @Parameter(description = "words to search for", required = true)
+            @RequestParam("q") String query,
+            @Parameter(description = "zero-based page number")
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @Parameter(description = "number of results per page")
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+
+        if (query.isBlank() || page < 0 || size < 1 || size > maxPageLimit || (long) page * size > Integer.MAX_VALUE) {
+            LOGGER.debug("Rejected search for '{}' page {} size {}", query, page, size);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(bookSearchService.search(query, page, size));
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Returns the changes to the catalog after a sequence number",
+            description = "Without since, the answer is empty and its next is where to start following "
+                    + "from. With wait, a reader that is up to date is answered as soon as a change commits, "
+                    + "or with no changes once wait seconds have passed. Changes are kept for a limited time; "
+                    + "a reader that falls further behind gets 410 and has to reload the catalog.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Changes after since, oldest first",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookChangesDto.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid since, limit or wait",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "410",
+                            description = "Changes after since have been compacted away",
                             content = @Content(mediaType = "application/json"))
             }
     )
-    public List<BookDto> getAllBooks() {
-        return bookService.findAll();
+    public DeferredResult<BookChangesDto> getChanges(
+            @Parameter(description = "sequence number of the last change seen, the next of the previous answer")
+            @RequestParam(name = "since", required = false) Long since,
+            @Parameter(description = "maximum number of changes to return")
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @Parameter(description = "seconds to wait for a change when there is none yet")
+            @RequestParam(name = "wait", defaultValue = "0") int waitSeconds) {
+
+        int changesLimit = limit == null ? defaultPageLimit : limit;
+        Duration wait = Duration.ofSeconds(Math.max(waitSeconds, 0));
+
+        if (changesLimit < 1 || changesLimit > maxPageLimit || waitSeconds < 0 || (since != null && since < 0)) {
+            throw new BadRequestException("Changes since " + since + " limit " + changesLimit + " wait " + waitSeconds);
+        }
+
+        if (since == null) {
+            DeferredResult<BookChangesDto> start = new DeferredResult<>();
+            start.setResult(BookChangesDto.none(bookChangeFeed.latest()));
+            return start;
+        }
+
+        return bookChangeFeed.poll(since, changesLimit, wait.compareTo(maxChangesWait) > 0 ? maxChangesWait : wait);
     }
 
-    @GetMapping("/{bookId}")
+    @GetMapping(value = "/{bookId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BookMediaTypes.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Returns a book given the book Id")
     @ApiResponses(
             value = {
@@ -72,22 +338,79 @@ public class BookController {
                             description = "Get Book by bookId",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "The book has not changed since the ETag in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid fields",
+                            content = @Content(mediaType = "application/json")),
                     @ApiResponse(
                             responseCode = "404",
                             description = "No Book found for the bookId provided",
                             content = @Content(mediaType = "application/json"))
             }
     )
-    public ResponseEntity<BookDto> getBookById(@PathVariable("bookId") long bookId) {
-        Optional<BookDto> optionalBook = bookService.findById(bookId);
+    public ResponseEntity<?> getBookById(
+            @PathVariable("bookId") long bookId,
+            @Parameter(description = "comma-separated fields to return, such as bookId,title,author (all by default)")
+            @RequestParam(name = "fields", required = false) String fields,
+            NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        Set<BookField> bookFields;
+        try {
+            bookFields = projection(fields);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Rejected book request with fields {}", fields);
+            return ResponseEntity.badRequest().build();
+        }
 
-        if (optionalBook.isPresent()) {
-            LOGGER.info("Found book {}", optionalBook);
-            return ResponseEntity.ok(optionalBook.get());
-        } else {
+        MediaType format = BookMediaTypes.negotiate(contentNegotiationManager, request);
+
+        if (bookFields != null) {
+            Optional<BookProjection> book = bookService.findById(bookId, bookFields);
+
+            if (book.isEmpty()) {
+                LOGGER.debug("No book found with id {}", bookId);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            if (notModified(request, book.get().version(), format, false)) {
+                return null;
+            }
+
+            LOGGER.info("Found book {}", bookId);
+            return converted(ResponseEntity.ok(), format, book.get().version()).body(book.get());
+        }
+
+        if (!format.equals(MediaType.APPLICATION_JSON)) {
+            Optional<BookDto> book = bookService.findById(bookId);
+
+            if (book.isEmpty()) {
+                LOGGER.debug("No book found with id {}", bookId);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            if (notModified(request, book.get().getVersion(), format, false)) {
+                return null;
+            }
+
+            LOGGER.info("Found book {}", bookId);
+            return converted(ResponseEntity.ok(), format, book.get().getVersion()).body(book.get());
+        }
+
+        Optional<CachedJson> book = bookJsonCache.book(bookId);
+
+        if (book.isEmpty()) {
             LOGGER.debug("No book found with id {}", bookId);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+
+        if (notModified(request, book.get().version(), format, true)) {
+            return null;
+        }
+
+        LOGGER.info("Found book {}", bookId);
+        return json(ResponseEntity.ok(), book.get(), request);
     }
 
     @GetMapping("/search/{title}")
@@ -118,6 +441,33 @@ public class BookController {
         }
     }
 
+    @GetMapping("/isbn/{isbn}")
+    @Operation(summary = "Returns a book given its ISBN",
+            description = "ISBN-10 and ISBN-13 forms of the same book match, with or without hyphens.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found the book with the given ISBN",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No book with the given ISBN",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<BookDto> getBookByIsbn(@Parameter(description = "ISBN-10 or ISBN-13", required = true) @PathVariable String isbn) {
+        Optional<BookDto> optionalBook = bookService.findByIsbn(isbn);
+
+        if (optionalBook.isPresent()) {
+            return ResponseEntity.ok(optionalBook.get());
+        } else {
+            LOGGER.debug("No book found with isbn {}", isbn);
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping
     @Operation(summary = "Add a new book")
     @ApiResponses(
@@ -131,6 +481,10 @@ public class BookController {
                             responseCode = "400",
                             description = "Book already exists with bookId",
                             content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "409",
+                            description = "A book with the same ISBN already exists",
+                            content = @Content(mediaType = "application/json")),
             }
     )
     public ResponseEntity<Void> createBook(@RequestBody @Valid BookDto bookDto) {
@@ -142,7 +496,7 @@ public class BookController {
     }
 
     @PutMapping("/{bookId}")
-    @Operation(summary = "Updates an existing book")
+    @Operation(summary = "Replaces an existing book", description = "Every field is replaced; use PATCH to change some only")
     @ApiResponses(
             value = {
                     @ApiResponse(
@@ -154,23 +508,75 @@ public class BookController {
                             responseCode = "404",
                             description = "No Book found for bookId provided",
                             content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "412",
+                            description = "The book has changed since the ETag in If-Match",
+                            content = @Content(mediaType = "application/json")),
             }
     )
     public ResponseEntity<Void> updateBook(
             @PathVariable("bookId") long bookId,
-            @RequestBody @Valid BookDto bookDto) {
+            @RequestBody @Valid BookDto bookDto,
+            @Parameter(description = "ETag of the book as last read; the update is refused if it has changed since")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        Optional<BookDto> optionalBook = bookService.findById(bookId);
+        bookDto.setVersion(expectedVersion(bookId, ifMatch));
 
-        if (optionalBook.isEmpty()) {
+        if (!bookService.update(bookId, bookDto)) {
+            LOGGER.debug("Book with id {} does not exist", bookId);
             return ResponseEntity.notFound().build();
         }
 
-        bookService.update(bookId, bookDto);
-
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping(value = "/{bookId}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    @Operation(summary = "Changes some fields of an existing book",
+            description = "Only the fields present in the body are written; the others keep their value.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The book as it is after the change",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "No fields to change, or an invalid value",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No Book found for bookId provided",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "412",
+                            description = "The book has changed since the ETag in If-Match",
+                            content = @Content(mediaType = "application/json")),
+            }
+    )
+    public ResponseEntity<BookDto> patchBook(
+            @PathVariable("bookId") long bookId,
+            @RequestBody @Valid BookPatchDto patch,
+            @Parameter(description = "ETag of the book as last read; the change is refused if it has changed since")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        if (patch.getTitle() == null && patch.getAuthor() == null
+                && patch.getDescription() == null && patch.getIsbn() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<BookDto> optionalBook = bookService.patch(bookId, patch, expectedVersion(bookId, ifMatch));
+
+        if (optionalBook.isEmpty()) {
+            LOGGER.debug("Book with id {} does not exist", bookId);
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag(optionalBook.get().getVersion(), MediaType.APPLICATION_JSON, false))
+                .body(optionalBook.get());
+    }
+
     @DeleteMapping("/{bookId}")
     @Operation(summary = "Deletes an existing book by Id")
     @ApiResponses(
@@ -184,20 +590,286 @@ public class BookController {
                             responseCode = "404",
                             description = "No Book found for bookId provided",
                             content = @Content(mediaType = "application/json")),
+                    @ApiResponse(
+                            responseCode = "412",
+                            description = "The book has changed since the ETag in If-Match",
+                            content = @Content(mediaType = "application/json")),
             }
     )
-    public ResponseEntity<Void> deleteBook(@PathVariable("bookId") long bookId) {
-        Optional<BookDto> optionalBook = bookService.findById(bookId);
-
-        if (optionalBook.isEmpty()) {
+    public ResponseEntity<Void> deleteBook(
+            @PathVariable("bookId") long bookId,
+            @Parameter(description = "ETag of the book as last read; the delete is refused if it has changed since")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!bookService.delete(bookId, expectedVersion(bookId, ifMatch))) {
             LOGGER.debug("Book with id {} does not exist", bookId);
             return ResponseEntity.notFound().build();
         }
 
-        bookService.delete(optionalBook.get());
-
         LOGGER.info("Book deleted with id {}", bookId);
 
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Adds several books in one transaction",
+            description = "Invalid items are reported and skipped; the valid ones are inserted using JDBC batches.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "One result per item, in request order",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookBatchResult.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Empty or oversized batch",
+                            content = @Content(mediaType = "application/json")),
+            }
+    )
+    public ResponseEntity<List<BookBatchResult>> createBooks(@RequestBody List<BookDto> bookDtos) {
+        if (bookDtos.isEmpty() || bookDtos.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BookBatchResult> results = applyValidated(bookDtos, false, bookService::saveAll);
+
+        LOGGER.info("Bulk create of {} books", bookDtos.size());
+
+        return ResponseEntity.ok(results);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Updates several existing books in one transaction")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "One result per item, in request order",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookBatchResult.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Empty or oversized batch",
+                            content = @Content(mediaType = "application/json")),
+            }
+    )
+    public ResponseEntity<List<BookBatchResult>> updateBooks(@RequestBody List<BookDto> bookDtos) {
+        if (bookDtos.isEmpty() || bookDtos.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BookBatchResult> results = applyValidated(bookDtos, true, bookService::updateAll);
+
+        LOGGER.info("Bulk update of {} books", bookDtos.size());
+
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Deletes several books by Id with a single statement")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "One result per Id, in request order",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookBatchResult.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Empty or oversized batch",
+                            content = @Content(mediaType = "application/json")),
+            }
+    )
+    public ResponseEntity<List<BookBatchResult>> deleteBooks(
+            @Parameter(description = "comma separated Ids of the books to delete", required = true)
+            @RequestParam("ids") List<Long> bookIds) {
+
+        if (bookIds.isEmpty() || bookIds.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BookBatchResult> results = bookService.deleteAll(bookIds);
+
+        LOGGER.info("Bulk delete of {} books", bookIds.size());
+
+        return ResponseEntity.ok(results);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> handleConstraintViolation(DataIntegrityViolationException e) {
+        LOGGER.debug("Rejected write violating a constraint: {}", e.getMostSpecificCause().getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleVersionConflict(OptimisticLockingFailureException e) {
+        LOGGER.debug("Rejected write of a changed book: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Void> handleBadRequest(BadRequestException e) {
+        LOGGER.debug("Rejected request: {}", e.getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+
+    @ExceptionHandler(ChangesCompactedException.class)
+    public ResponseEntity<Void> handleCompactedChanges(ChangesCompactedException e) {
+        LOGGER.debug("Rejected changes request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GONE).build();
+    }
+
+    // Each representation of a version has a tag of its own: CBOR and Smile bodies, and
+    // responses to clients taking gzip, which may be gzipped, are tagged apart from JSON
+    private static String eTag(long version, MediaType format, boolean gzip) {
+        StringBuilder eTag = new StringBuilder("\"").append(version);
+        if (format.equals(MediaType.APPLICATION_CBOR)) {
+            eTag.append("-cbor");
+        } else if (format.equals(BookMediaTypes.APPLICATION_SMILE)) {
+            eTag.append("-smile");
+        }
+        if (gzip) {
+            eTag.append("-gzip");
+        }
+        return eTag.append('"').toString();
+    }
+
+    // A 304 carries the Vary of the 200 it stands for, so that caches keep the
+    // variants apart. Cached JSON varies with Accept-Encoding as well.
+    private static boolean notModified(NativeWebRequest request, long version, MediaType format, boolean cached) {
+        boolean gzip = cached && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.setHeader(HttpHeaders.VARY,
+                    cached ? HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING : HttpHeaders.ACCEPT);
+        }
+
+        return request.checkNotModified(eTag(version, format, gzip));
+    }
+
+    // Writes the cached bytes as they are, gzipped when the client takes gzip and a
+    // gzipped copy was worth making.
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder response, CachedJson json,
+                                               WebRequest request) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag(json.version(), MediaType.APPLICATION_JSON, gzip))
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+        if (json.gzipped() != null && gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.gzipped());
+        }
+
+        return response.body(json.json());
+    }
+
+    // CBOR and Smile bodies, and projections in any format, are written by the message
+    // converters, uncached
+    private static ResponseEntity.BodyBuilder converted(ResponseEntity.BodyBuilder response, MediaType format,
+                                                     long version) {
+        return response.contentType(format)
+                .eTag(eTag(version, format, false))
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // The fields asked for, or null for the whole book, which may come from the cache
+    private static Set<BookField> projection(String fields) {
+        if (fields == null) {
+            return null;
+        }
+
+        Set<BookField> bookFields = BookField.fromParameter(fields);
+        return bookFields.size() == BookField.values().length ? null : bookFields;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // The version an If-Match header allows the write for: null when there is none (or
+    // it is *), -1 when no listed tag can match. Of several tags, the one naming the
+    // current version is taken; the write itself still fails if the book changes meanwhile.
+    // Weak and malformed tags never match.
+    private Long expectedVersion(long bookId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                // any representation of the version, such as "7-gzip", names it
+                String opaque = tag.substring(1, tag.length() - 1);
+                int suffix = opaque.indexOf('-');
+                try {
+                    versions.add(Long.parseLong(suffix < 0 ? opaque : opaque.substring(0, suffix)));
+                } catch (NumberFormatException e) {
+                    LOGGER.debug("Unparseable If-Match tag {}", tag);
+                }
+            }
+        }
+
+        if (versions.size() == 1) {
+            return versions.iterator().next();
+        }
+        return bookService.findVersion(bookId).filter(versions::contains).orElse(-1L);
+    }
+
+    // Validates every item, hands the valid ones to the service and merges the
+    // results back into request order.
+    private List<BookBatchResult> applyValidated(List<BookDto> bookDtos,
+                                            boolean requireId,
+                                            Function<List<BookDto>, List<BookBatchResult>> operation) {
+        BookBatchResult[] results = new BookBatchResult[bookDtos.size()];
+        List<BookDto> valid = new ArrayList<>(bookDtos.size());
+        List<Integer> validIndexes = new ArrayList<>(bookDtos.size());
+
+        for (int i = 0; i < bookDtos.size(); i++) {
+            BookDto bookDto = bookDtos.get(i);
+
+            if (bookDto == null) {
+                results[i] = BookBatchResult.invalid(i, null, "missing book");
+                continue;
+            }
+
+            Set<ConstraintViolation<BookDto>> violations = validator.validate(bookDto);
+
+            if (requireId && bookDto.getBookId() == null) {
+                results[i] = BookBatchResult.invalid(i, null, "bookId: must not be null");
+            } else if (!violations.isEmpty()) {
+                results[i] = BookBatchResult.invalid(i, bookDto.getBookId(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else {
+                valid.add(bookDto);
+                validIndexes.add(i);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            for (BookBatchResult result : operation.apply(valid)) {
+                int index = validIndexes.get(result.index());
+                results[index] = result.withIndex(index);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
 }
@@ -0,0 +1,91 @@
+package dev.chiedo.bookapi.controller;
+
+import dev.chiedo.bookapi.importer.BookImportFormat;
+import dev.chiedo.bookapi.importer.BookImportJob;
+import dev.chiedo.bookapi.importer.BookImportJobs;
+import dev.chiedo.bookapi.model.dto.BookImportStatusDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
+
+@RestController
+@RequestMapping("/api/v1/books/import")
+public class BookImportController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookImportController.class);
+
+    private final BookImportJobs bookImportJobs;
+
+    // constructor injection
+    public BookImportController(BookImportJobs bookImportJobs) {
+        this.bookImportJobs = bookImportJobs;
+    }
+
+    @PostMapping(consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Imports a catalog file in the background",
+            description = "The body is either CSV with a header row naming the title, author, isbn and "
+                    + "description columns, or one JSON book per line. Poll the Location for progress and "
+                    + "the lines that could not be imported.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "The import was queued",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookImportStatusDto.class)))
+            }
+    )
+    public ResponseEntity<BookImportStatusDto> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                           InputStream body) throws IOException {
+        BookImportJob job = bookImportJobs.submit(body, BookImportFormat.fromMediaType(contentType));
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.id())
+                .toUri();
+
+        LOGGER.info("Queued import {}", job.id());
+
+        return ResponseEntity.accepted().location(location).body(job.status());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Returns the progress of an import")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Progress so far and the first lines that failed",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookImportStatusDto.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No import with this id, or it finished too long ago")
+            }
+    )
+    public ResponseEntity<BookImportStatusDto> getImport(@PathVariable("id") UUID id) {
+        return bookImportJobs.find(id)
+                .map(job -> ResponseEntity.ok(job.status()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,176 @@
+package dev.chiedo.bookapi.controller;
+
+import dev.chiedo.bookapi.model.dto.AuthorStatsCheckDto;
+import dev.chiedo.bookapi.model.dto.BookStatsDto;
+import dev.chiedo.bookapi.service.BookService;
+import dev.chiedo.bookapi.stats.AuthorStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/v1/books/stats")
+public class BookStatsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookStatsController.class);
+
+    private final AuthorStats authorStats;
+
+    private final BookService bookService;
+
+    private final int defaultPageLimit;
+
+    private final int maxPageLimit;
+
+    // constructor injection
+    public BookStatsController(AuthorStats authorStats,
+                               BookService bookService,
+                               @Value("${books.page.default-limit:100}") int defaultPageLimit,
+                               @Value("${books.page.max-limit:1000}") int maxPageLimit) {
+        this.authorStats = authorStats;
+        this.bookService = bookService;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+    }
+
+    @GetMapping
+    @Operation(summary = "Returns the number of books and authors and the authors with the most books",
+            description = "Counts are maintained as books are written, so this never reads the books "
+                    + "themselves. The ETag is that of the book collection.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Catalog totals and top authors",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookStatsDto.class))),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "The catalog has not changed since the ETag in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid top",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<BookStatsDto> getStats(
+            @Parameter(description = "number of top authors to return")
+            @RequestParam(name = "top", defaultValue = "10") int top,
+            WebRequest request) {
+
+        if (top < 0 || top > maxPageLimit) {
+            LOGGER.debug("Rejected stats request for top {}", top);
+            return ResponseEntity.badRequest().build();
+        }
+
+        // read before the counts, so a change made meanwhile gets a newer ETag
+        long catalogVersion = bookService.catalogVersion();
+
+        if (request.checkNotModified(eTag(catalogVersion))) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag(catalogVersion))
+                .body(authorStats.stats(top));
+    }
+
+    @GetMapping("/authors")
+    @Operation(summary = "Returns the number of books of each author, in alphabetical order",
+            description = "When more authors exist, the response carries a Link header with rel=\"next\".")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "A page of authors",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = BookStatsDto.AuthorCount.class)))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid limit",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<List<BookStatsDto.AuthorCount>> getAuthors(
+            @Parameter(description = "maximum number of authors to return")
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @Parameter(description = "author to continue after, the last one of the previous page")
+            @RequestParam(name = "after", required = false) String after) {
+
+        int pageLimit = limit == null ? defaultPageLimit : limit;
+
+        if (pageLimit < 1 || pageLimit > maxPageLimit) {
+            LOGGER.debug("Rejected page limit {}", pageLimit);
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BookStatsDto.AuthorCount> authors = authorStats.authors(after, pageLimit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        // a full page may be followed by more
+        if (authors.size() == pageLimit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", authors.get(authors.size() - 1).author())
+                    .replaceQueryParam("limit", pageLimit)
+                    .encode()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+
+        return response.body(authors);
+    }
+
+    @GetMapping("/verify")
+    @Operation(summary = "Recounts the books of every author and reports where the maintained counts differ",
+            description = "Reads every book; writers wait until it is done.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "The authors whose counts are off, if any",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = AuthorStatsCheckDto.class)))
+    public ResponseEntity<AuthorStatsCheckDto> verifyStats() {
+        AuthorStatsCheckDto check = authorStats.verify();
+
+        if (!check.mismatches().isEmpty()) {
+            LOGGER.warn("Counts of {} authors are off", check.mismatches().size());
+        }
+
+        return ResponseEntity.ok(check);
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Replaces the maintained counts with a recount of every book",
+            description = "Reads every book; writers wait until it is done.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "The authors whose counts were off before the rebuild, if any",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = AuthorStatsCheckDto.class)))
+    public ResponseEntity<AuthorStatsCheckDto> rebuildStats() {
+        return ResponseEntity.ok(authorStats.rebuild());
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,71 @@
+package dev.chiedo.bookapi.controller;
+
+import dev.chiedo.bookapi.model.dto.BookSuggestionDto;
+import dev.chiedo.bookapi.suggest.BookSuggestions;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/v1/books/suggest")
+public class BookSuggestController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSuggestController.class);
+
+    private final BookSuggestions bookSuggestions;
+
+    private final int maxLimit;
+
+    // constructor injection
+    public BookSuggestController(BookSuggestions bookSuggestions,
+                                 @Value("${books.suggest.max-limit:50}") int maxLimit) {
+        this.bookSuggestions = bookSuggestions;
+        this.maxLimit = maxLimit;
+    }
+
+    @GetMapping
+    @Operation(summary = "Suggests titles and authors starting with what has been typed",
+            description = "Matching ignores case, diacritics and repeated whitespace. Titles and authors "
+                    + "with the most books come first. Answered from memory, without reading the books.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Matching titles and authors, most books first",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = BookSuggestionDto.class)))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Blank query or invalid limit",
+                            content = @Content(mediaType = "application/json"))
+            }
+    )
+    public ResponseEntity<List<BookSuggestionDto>> suggest(
+            @Parameter(description = "the beginning of a title or author", required = true)
+            @RequestParam("q") String query,
+            @Parameter(description = "maximum number of suggestions to return")
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+
+        if (query.isBlank() || limit < 1 || limit > maxLimit) {
+            LOGGER.debug("Rejected suggestions for '{}' limit {}", query, limit);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(bookSuggestions.suggest(query, limit));
+    }
+}
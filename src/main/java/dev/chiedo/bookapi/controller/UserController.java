@@ -2,6 +2,7 @@ package dev.chiedo.bookapi.controller;
 
 import dev.chiedo.bookapi.model.entity.UserEntity;
 import dev.chiedo.bookapi.repository.UserRepository;
+import dev.chiedo.bookapi.user.AuthenticationCache;
 import dev.chiedo.bookapi.user.UserRegistrationDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -30,10 +31,15 @@ public class UserController {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final AuthenticationCache authenticationCache;
+
     // constructor injection
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserController(UserRepository userRepository,
+                          PasswordEncoder passwordEncoder,
+                          AuthenticationCache authenticationCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.authenticationCache = authenticationCache;
     }
 
     @PostMapping("/register")
@@ -49,6 +55,9 @@ public class UserController {
 
         userRepository.save(user);
 
+        // drop any cached authentication made with the previous credentials
+        authenticationCache.invalidate(user.getUsername());
+
         LOGGER.info("New user registered {}", user);
 
         return "New user successfully registered";
@@ -0,0 +1,41 @@
+package dev.chiedo.bookapi.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions ({@code @Transactional(readOnly = true)}) to the
+ * read-only data source and everything else to the primary. The physical connection
+ * is only fetched at the first statement, once the transaction manager has marked
+ * the connection read-only or not.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource readOnly) {
+        super(new WriteTrackingDataSource(primary));
+        setReadOnlyDataSource(readOnly);
+    }
+
+    // a read-write transaction counts as a write, whether or not it changes anything
+    private static final class WriteTrackingDataSource extends DelegatingDataSource {
+
+        private WriteTrackingDataSource(DataSource primary) {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                ReadYourWrites.markWritten();
+            }
+
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.chiedo.bookapi.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers, for the rest of the current HTTP request, that it has written to the
+ * primary. Later reads of the same request then go to the primary as well, so they
+ * see the write even when the replicas lag behind. Outside of a request nothing is
+ * remembered.
+ */
+final class ReadYourWrites {
+
+    private static final String WRITTEN = ReadYourWrites.class.getName() + ".WRITTEN";
+
+    private ReadYourWrites() {
+    }
+
+    static void markWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes != null) {
+            attributes.setAttribute(WRITTEN, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    static boolean hasWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        return attributes != null && attributes.getAttribute(WRITTEN, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.chiedo.bookapi.event;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+
+/**
+ * Published by the book service for every book it creates, updates or deletes,
+ * inside the transaction that makes the change.
+ *
+ * @param before the book as it was, {@code null} for {@link Type#CREATED}
+ * @param after  the book as it is now, {@code null} for {@link Type#DELETED}
+ */
+public record BookChangedEvent(Type type, BookDto before, BookDto after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent created(BookDto after) {
+        return new BookChangedEvent(Type.CREATED, null, after);
+    }
+
+    public static BookChangedEvent updated(BookDto before, BookDto after) {
+        return new BookChangedEvent(Type.UPDATED, before, after);
+    }
+
+    public static BookChangedEvent deleted(BookDto before) {
+        return new BookChangedEvent(Type.DELETED, before, null);
+    }
+
+    public long bookId() {
+        return after != null ? after.getBookId() : before.getBookId();
+    }
+}
@@ -0,0 +1,91 @@
+package dev.chiedo.bookapi.importer;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses CSV lines into books, by the columns the header row names. Fields may be
+ * quoted, with {@code ""} for a quote inside them, but may not span lines: files are
+ * split into chunks at line breaks. Empty fields are read as missing.
+ */
+final class BookCsvParser {
+
+    private final int title;
+    private final int author;
+    private final int isbn;
+    private final int description;
+
+    private BookCsvParser(int title, int author, int isbn, int description) {
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.description = description;
+    }
+
+    static BookCsvParser fromHeader(String header) {
+        List<String> columns = fields(header).stream()
+                .map(column -> column == null ? "" : column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+
+        if (!columns.contains("title") || !columns.contains("author") || !columns.contains("isbn")) {
+            throw new IllegalArgumentException("The CSV header must name title, author and isbn columns, found "
+                    + columns);
+        }
+
+        return new BookCsvParser(columns.indexOf("title"), columns.indexOf("author"), columns.indexOf("isbn"),
+                columns.indexOf("description"));
+    }
+
+    BookDto parse(String line) {
+        List<String> fields = fields(line);
+
+        BookDto book = new BookDto();
+        book.setTitle(field(fields, title));
+        book.setAuthor(field(fields, author));
+        book.setIsbn(field(fields, isbn));
+        book.setDescription(field(fields, description));
+        return book;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() ? null : field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.isEmpty() ? null : field.toString());
+
+        return fields;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.chiedo.bookapi.importer;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Formats a catalog can be imported from, one book per line: CSV with a header row
+ * naming the {@code title}, {@code author}, {@code isbn} and (optionally)
+ * {@code description} columns, or newline-delimited JSON in the shape of {@code BookDto}.
+ */
+public enum BookImportFormat {
+
+    CSV("text/csv", ".csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, ".ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    BookImportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public static BookImportFormat fromMediaType(MediaType mediaType) {
+        for (BookImportFormat format : values()) {
+            if (MediaType.valueOf(format.mediaType).equalsTypeAndSubtype(mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import media type " + mediaType);
+    }
+
+    public static BookImportFormat fromFileName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (BookImportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Cannot tell the format of " + file + ", expected .csv or .ndjson");
+    }
+}
@@ -0,0 +1,100 @@
+package dev.chiedo.bookapi.importer;
+
+import dev.chiedo.bookapi.model.dto.BookImportStatusDto;
+import dev.chiedo.bookapi.model.dto.BookImportStatusDto.LineError;
+import dev.chiedo.bookapi.model.dto.BookImportStatusDto.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One import, updated by the pipeline's threads as it goes and read by whoever asks
+ * for its status. Only the first {@code maxReportedErrors} failed lines are kept.
+ */
+public class BookImportJob {
+
+    private final UUID id = UUID.randomUUID();
+    private final BookImportFormat format;
+    private final int maxReportedErrors;
+
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<LineError> errors = new ArrayList<>();
+
+    private volatile State state = State.QUEUED;
+    private volatile long totalBytes;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    public BookImportJob(BookImportFormat format, int maxReportedErrors) {
+        this.format = format;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public BookImportFormat format() {
+        return format;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public long failedLines() {
+        return failed.get();
+    }
+
+    void started(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void parsed(long bytes, long lines) {
+        bytesParsed.addAndGet(bytes);
+        this.lines.addAndGet(lines);
+    }
+
+    void imported(int books) {
+        imported.addAndGet(books);
+    }
+
+    void failed(long line, String message) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+    }
+
+    void completed() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void failed(Throwable e) {
+        failure = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public BookImportStatusDto status() {
+        List<LineError> reported;
+        synchronized (errors) {
+            reported = List.copyOf(errors);
+        }
+
+        return new BookImportStatusDto(id, state, format.name(), totalBytes, bytesParsed.get(), lines.get(),
+                imported.get(), failed.get(), reported, startedAt, finishedAt, failure);
+    }
+}
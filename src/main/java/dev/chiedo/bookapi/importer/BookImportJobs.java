@@ -0,0 +1,86 @@
+package dev.chiedo.bookapi.importer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports uploaded through the API. The upload is spooled to a temporary file, which
+ * the importer maps, and imports run one at a time, in the order they were submitted;
+ * each already uses all the parsers and writers it is given. Jobs can be looked up
+ * until {@code books.import.retention} after they were submitted.
+ */
+@Component
+public class BookImportJobs {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookImportJobs.class);
+
+    private final BookImporter bookImporter;
+    private final int maxReportedErrors;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Cache<UUID, BookImportJob> jobs;
+
+    // constructor injection
+    public BookImportJobs(BookImporter bookImporter,
+                          @Value("${books.import.max-reported-errors:1000}") int maxReportedErrors,
+                          @Value("${books.import.retention:1d}") Duration retention) {
+        this.bookImporter = bookImporter;
+        this.maxReportedErrors = maxReportedErrors;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    public BookImportJob submit(InputStream upload, BookImportFormat format) throws IOException {
+        Path file = Files.createTempFile("books-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(upload, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        BookImportJob job = new BookImportJob(format, maxReportedErrors);
+        jobs.put(job.id(), job);
+
+        executor.execute(() -> {
+            try {
+                bookImporter.importFile(file, job);
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete {}", file, e);
+                }
+            }
+        });
+
+        return job;
+    }
+
+    public Optional<BookImportJob> find(UUID id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package dev.chiedo.bookapi.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Imports {@code books.import.file} on startup and exits: with 0 when every line was
+ * imported, 1 when some lines failed and 2 when the import stopped early. For example
+ * {@code java -jar bookApi.jar --books.import.file=feed.csv --spring.main.web-application-type=none}.
+ */
+@Component
+@ConditionalOnProperty(name = "books.import.file")
+public class BookImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookImportRunner.class);
+
+    private final BookImporter bookImporter;
+    private final ApplicationContext applicationContext;
+    private final Path file;
+    private final String format;
+    private final int maxReportedErrors;
+
+    private volatile int exitCode;
+
+    // constructor injection
+    public BookImportRunner(BookImporter bookImporter,
+                            ApplicationContext applicationContext,
+                            @Value("${books.import.file}") Path file,
+                            @Value("${books.import.format:}") String format,
+                            @Value("${books.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.bookImporter = bookImporter;
+        this.applicationContext = applicationContext;
+        this.file = file;
+        this.format = format;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        BookImportJob job = new BookImportJob(
+                format.isEmpty() ? BookImportFormat.fromFileName(file) : BookImportFormat.valueOf(format.toUpperCase(Locale.ROOT)),
+                maxReportedErrors);
+
+        bookImporter.importFile(file, job);
+
+        var status = job.status();
+        status.errors().forEach(error -> LOGGER.warn("Line {}: {}", error.line(), error.message()));
+        if (status.failed() > status.errors().size()) {
+            LOGGER.warn("{} more failed lines not shown", status.failed() - status.errors().size());
+        }
+
+        exitCode = switch (status.state()) {
+            case COMPLETED -> status.failed() == 0 ? 0 : 1;
+            default -> 2;
+        };
+
+        // scheduling and pool threads would keep the JVM running
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
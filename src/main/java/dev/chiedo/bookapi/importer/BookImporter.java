@@ -0,0 +1,396 @@
+package dev.chiedo.bookapi.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a catalog file through a bounded pipeline:
+ * <ol>
+ *     <li>the file is cut into chunks of about {@code books.import.chunk-size} at line
+ *     breaks, and each chunk is memory-mapped, parsed and validated on one of
+ *     {@code books.import.parsers} threads;</li>
+ *     <li>parsed chunks are taken in file order, so line numbers add up, and their books
+ *     are regrouped into batches of {@code books.import.batch-size};</li>
+ *     <li>each batch is inserted in its own transaction through
+ *     {@link BookService#saveAll}, on one of {@code books.import.writers} threads.</li>
+ * </ol>
+ * At most two chunks per parser and two batches per writer are in flight. When the
+ * database falls behind, the parsers wait too, so memory use depends on these settings
+ * and not on the size of the file.
+ * <p>
+ * A batch that the database refuses (a duplicate ISBN, or a constraint of the entity such
+ * as a required description) is split in halves and retried until the offending lines
+ * are found. Those lines are reported and the rest are
+ * imported. Any other failure to write stops the import.
+ */
+@Service
+public class BookImporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookImporter.class);
+
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    // the unique index on normalized ISBNs (V5), and the SQLStates of refused data
+    private static final String ISBN_INDEX = "UX_BOOKS_ISBN_NORMALIZED";
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String STRING_TOO_LONG = "22001";
+    private static final String DATA_EXCEPTION = "22";
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    private record Chunk(long start, long end) {
+    }
+
+    // lines are counted from the start of their chunk until the chunk is taken in order
+    private record ParsedBook(long line, BookDto book) {
+    }
+
+    private record FailedLine(long line, String message) {
+    }
+
+    private record ParsedChunk(List<ParsedBook> books, List<FailedLine> failures, long lines, long blankLines,
+                               long bytes) {
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        BookDto parse(byte[] line, int length) throws IOException;
+    }
+
+    private final BookService bookService;
+    private final Validator validator;
+    private final ObjectReader bookReader;
+    private final long chunkSize;
+    private final int parsers;
+    private final int writers;
+    private final int batchSize;
+    private final Duration progressInterval;
+
+    // constructor injection
+    public BookImporter(BookService bookService,
+                        Validator validator,
+                        ObjectMapper objectMapper,
+                        @Value("${books.import.chunk-size:1MB}") DataSize chunkSize,
+                        @Value("${books.import.parsers:0}") int parsers,
+                        @Value("${books.import.writers:4}") int writers,
+                        @Value("${books.import.batch-size:1000}") int batchSize,
+                        @Value("${books.import.progress-interval:10s}") Duration progressInterval) {
+        this.bookService = bookService;
+        this.validator = validator;
+        this.bookReader = objectMapper.readerFor(BookDto.class);
+        this.chunkSize = chunkSize.toBytes();
+        this.parsers = parsers > 0 ? parsers : Runtime.getRuntime().availableProcessors();
+        this.writers = writers;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Runs the import on the calling thread, which reads ahead and hands out batches,
+     * and leaves the outcome in {@code job}.
+     */
+    public void importFile(Path file, BookImportJob job) {
+        try {
+            run(file, job);
+            job.completed();
+            LOGGER.info("Imported {}: {}", file.getFileName(), summary(job));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed(e);
+        } catch (Exception e) {
+            LOGGER.warn("Import of {} failed: {}", file.getFileName(), e.getMessage());
+            job.failed(e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private void run(Path file, BookImportJob job) throws IOException, InterruptedException, ExecutionException {
+        ExecutorService parsing = Executors.newFixedThreadPool(parsers);
+        ExecutorService writing = Executors.newFixedThreadPool(writers);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            job.started(size);
+
+            long position = startsWith(channel, UTF8_BOM) ? UTF8_BOM.length : 0;
+            long line = 1;
+            job.parsed(position, 0);
+            LineParser parser;
+
+            if (job.format() == BookImportFormat.CSV) {
+                long headerEnd = lineEnd(channel, position, size);
+                BookCsvParser csv = BookCsvParser.fromHeader(
+                        new String(read(channel, position, headerEnd), StandardCharsets.UTF_8).strip());
+                parser = (bytes, length) -> csv.parse(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                job.parsed(headerEnd - position, 0);
+                position = headerEnd;
+                line++;
+            } else {
+                parser = (bytes, length) -> bookReader.readValue(bytes, 0, length);
+            }
+
+            Semaphore batches = new Semaphore(writers * 2);
+            AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+            Deque<Future<ParsedChunk>> chunks = new ArrayDeque<>();
+            List<ParsedBook> batch = new ArrayList<>(batchSize);
+            long nextProgress = System.nanoTime() + progressInterval.toNanos();
+
+            while (position < size || !chunks.isEmpty()) {
+                while (position < size && chunks.size() < parsers * 2) {
+                    Chunk chunk = new Chunk(position, chunkEnd(channel, position, size));
+                    chunks.add(parsing.submit(() -> parse(channel, chunk, parser)));
+                    position = chunk.end();
+                }
+
+                ParsedChunk parsed = chunks.removeFirst().get();
+
+                for (FailedLine failure : parsed.failures()) {
+                    job.failed(line + failure.line(), failure.message());
+                }
+                for (ParsedBook book : parsed.books()) {
+                    batch.add(new ParsedBook(line + book.line(), book.book()));
+                    if (batch.size() == batchSize) {
+                        write(writing, batches, batch, job, writeFailure);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                line += parsed.lines();
+                job.parsed(parsed.bytes(), parsed.lines() - parsed.blankLines());
+
+                if (System.nanoTime() - nextProgress >= 0) {
+                    LOGGER.info("Importing {}: {}", file.getFileName(), summary(job));
+                    nextProgress = System.nanoTime() + progressInterval.toNanos();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                write(writing, batches, batch, job, writeFailure);
+            }
+
+            // every permit back means every batch has been written
+            batches.acquire(writers * 2);
+            if (writeFailure.get() != null) {
+                throw writeFailure.get();
+            }
+        } finally {
+            parsing.shutdownNow();
+            writing.shutdownNow();
+        }
+    }
+
+    private void write(ExecutorService writing, Semaphore batches, List<ParsedBook> batch, BookImportJob job,
+                       AtomicReference<RuntimeException> writeFailure) throws InterruptedException {
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+
+        // blocks while the writers are behind, which holds back the parsers as well
+        batches.acquire();
+        writing.execute(() -> {
+            try {
+                save(batch, job);
+            } catch (RuntimeException e) {
+                writeFailure.compareAndSet(null, e);
+            } finally {
+                batches.release();
+            }
+        });
+    }
+
+    private void save(List<ParsedBook> batch, BookImportJob job) {
+        try {
+            bookService.saveAll(batch.stream().map(ParsedBook::book).toList());
+            job.imported(batch.size());
+        } catch (DataIntegrityViolationException | TransactionSystemException e) {
+            String rejection = rejection(e);
+            if (rejection == null) {
+                throw e;
+            }
+            if (batch.size() == 1) {
+                job.failed(batch.getFirst().line(), rejection);
+                return;
+            }
+            int half = batch.size() / 2;
+            save(batch.subList(0, half), job);
+            save(batch.subList(half, batch.size()), job);
+        }
+    }
+
+    // why the database refused a book, or null when the failure is not down to the data:
+    // a duplicate ISBN, a value the columns cannot hold, or a constraint of the entity
+    // that BookDto does not check
+    private static String rejection(RuntimeException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+
+        if (e instanceof DataIntegrityViolationException && cause instanceof SQLException sqlException
+                && sqlException.getSQLState() != null) {
+            String sqlState = sqlException.getSQLState();
+            if (sqlState.equals(UNIQUE_VIOLATION)
+                    && sqlException.getMessage().toUpperCase(Locale.ROOT).contains(ISBN_INDEX)) {
+                return "isbn: a book with this ISBN already exists";
+            }
+            if (sqlState.equals(STRING_TOO_LONG)) {
+                return "a value is longer than its column allows";
+            }
+            if (sqlState.startsWith(DATA_EXCEPTION) || sqlState.startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                return "refused by the database (SQLState " + sqlState + ")";
+            }
+        }
+        if (cause instanceof ConstraintViolationException violations) {
+            return violations.getConstraintViolations().stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        return null;
+    }
+
+    private ParsedChunk parse(FileChannel channel, Chunk chunk, LineParser parser) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+
+        List<ParsedBook> books = new ArrayList<>();
+        List<FailedLine> failures = new ArrayList<>();
+        byte[] line = new byte[512];
+        int length = 0;
+        long lines = 0;
+        long blankLines = 0;
+
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+            }
+
+            // the last line of the file may have no line break
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (isBlank(line, length)) {
+                blankLines++;
+            } else {
+                parseLine(parser, line, length, lines, books, failures);
+            }
+            lines++;
+            length = 0;
+        }
+
+        return new ParsedChunk(books, failures, lines, blankLines, chunk.end() - chunk.start());
+    }
+
+    private void parseLine(LineParser parser, byte[] line, int length, long index,
+                           List<ParsedBook> books, List<FailedLine> failures) {
+        BookDto book;
+        try {
+            book = parser.parse(line, length);
+        } catch (JsonProcessingException e) {
+            failures.add(new FailedLine(index, "unreadable JSON: " + e.getOriginalMessage()));
+            return;
+        } catch (IOException | IllegalArgumentException e) {
+            failures.add(new FailedLine(index, "unreadable line: " + e.getMessage()));
+            return;
+        }
+
+        Set<ConstraintViolation<BookDto>> violations = validator.validate(book);
+        if (violations.isEmpty()) {
+            books.add(new ParsedBook(index, book));
+        } else {
+            failures.add(new FailedLine(index, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))));
+        }
+    }
+
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] != ' ' && line[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ends just past the first line break at or after start + chunkSize - 1
+    private long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long nominal = start + chunkSize;
+        return nominal >= size ? size : lineEnd(channel, nominal - 1, size);
+    }
+
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW);
+
+        for (long position = from; position < size; position += window.limit()) {
+            window.clear();
+            channel.read(window, position);
+            window.flip();
+            for (int i = 0; i < window.limit(); i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static byte[] read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+            // reads until full or at the end of the file
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static boolean startsWith(FileChannel channel, byte[] prefix) throws IOException {
+        return channel.size() >= prefix.length && Arrays.equals(read(channel, 0, prefix.length), prefix);
+    }
+
+    private static String summary(BookImportJob job) {
+        var status = job.status();
+        return String.format("%d of %d bytes read, %d lines, %d books imported, %d lines failed",
+                status.bytesParsed(), status.totalBytes(), status.lines(), status.imported(), status.failed());
+    }
+}
@@ -0,0 +1,155 @@
+package dev.chiedo.bookapi.isbn;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the normalized ISBNs in the catalog, so lookups for ISBNs we
+ * do not carry are answered without a query. Built once the application is
+ * ready; until then every ISBN is reported as possibly present.
+ * <p>
+ * Only writes made through this instance are seen. Deleted books stay in the
+ * filter (raising the false-positive rate, never causing a wrong miss) until the
+ * next rebuild.
+ */
+@Component
+public class IsbnFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IsbnFilter.class);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile BloomFilter filter;
+
+    // receives writes while a rebuild is reading the catalog
+    private volatile BloomFilter building;
+
+    // constructor injection
+    public IsbnFilter(BookRepository bookRepository,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${books.isbn.filter.expected-insertions:1000000}") long expectedInsertions,
+                      @Value("${books.isbn.filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+
+        Gauge.builder("books.isbn.filter.false.positive.rate", this, IsbnFilter::observedFalsePositiveRate)
+                .description("Share of lookups for absent ISBNs that the filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("books.isbn.filter.expected.false.positive.rate", this, IsbnFilter::expectedFalsePositiveRate)
+                .description("False-positive probability implied by the bits currently set")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        long count = bookRepository.count();
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedInsertions, 2 * count), falsePositiveProbability);
+
+        // set before reading, so a write committed after the read started still reaches it
+        building = rebuilt;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> isbns = bookRepository.streamNormalizedIsbns()) {
+                    isbns.forEach(rebuilt::add);
+                }
+            });
+            filter = rebuilt;
+        } finally {
+            building = null;
+        }
+
+        LOGGER.info("Built ISBN filter over {} books in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @param normalizedIsbn an ISBN as returned by {@link IsbnNormalizer#normalize}
+     * @return false only if no book has this ISBN
+     */
+    public boolean mightContain(String normalizedIsbn) {
+        BloomFilter current = filter;
+
+        if (current == null || current.mightContain(normalizedIsbn)) {
+            return true;
+        }
+
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Records a lookup that passed {@link #mightContain} but found nothing.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    // Added while the transaction is still open, so the filter never lags behind
+    // committed data, and again after commit in case a rebuild started reading in between.
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        add(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChangeCommitted(BookChangedEvent event) {
+        add(event);
+    }
+
+    private void add(BookChangedEvent event) {
+        if (event.after() == null) {
+            return;
+        }
+
+        String isbn = IsbnNormalizer.normalize(event.after().getIsbn());
+
+        // building before filter: a rebuild publishes the new filter before clearing building
+        BloomFilter next = building;
+        if (next != null) {
+            next.add(isbn);
+        }
+
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(isbn);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        long passed = falsePositives.sum();
+        long lookups = passed + negatives.sum();
+
+        return lookups == 0 ? 0 : (double) passed / lookups;
+    }
+
+    private double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+
+        return current == null ? 1 : current.expectedFalsePositiveProbability();
+    }
+}
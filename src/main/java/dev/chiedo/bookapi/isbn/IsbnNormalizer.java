@@ -0,0 +1,61 @@
+package dev.chiedo.bookapi.isbn;
+
+/**
+ * Canonical form of an ISBN: everything except digits and {@code X} removed,
+ * upper-cased, with ISBN-10s converted to their 978-prefixed ISBN-13. Ten
+ * characters whose check digit is wrong are not an ISBN-10 and are kept as they are.
+ * <p>
+ * Must stay in step with the {@code isbn_normalized} column of
+ * {@code V5__add_normalized_isbn_index.sql}, which computes the same value in SQL.
+ */
+public final class IsbnNormalizer {
+
+    private IsbnNormalizer() {
+    }
+
+    public static String normalize(String isbn) {
+        StringBuilder normalized = new StringBuilder(13);
+
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = Character.toUpperCase(isbn.charAt(i));
+            if ((c >= '0' && c <= '9') || c == 'X') {
+                normalized.append(c);
+            }
+        }
+
+        if (isIsbn10(normalized)) {
+            return toIsbn13(normalized);
+        }
+
+        return normalized.toString();
+    }
+
+    private static boolean isIsbn10(CharSequence value) {
+        if (value.length() != 10) {
+            return false;
+        }
+        // weights 10 down to 1; only the check digit may be X, for 10
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = value.charAt(i);
+            if (c == 'X' && i < 9) {
+                return false;
+            }
+            sum += (10 - i) * (c == 'X' ? 10 : c - '0');
+        }
+        return sum % 11 == 0;
+    }
+
+    private static String toIsbn13(CharSequence isbn10) {
+        // 9, 7 and 8 weighted 1, 3, 1
+        int sum = 38;
+        for (int i = 0; i < 9; i++) {
+            int digit = isbn10.charAt(i) - '0';
+            sum += i % 2 == 0 ? 3 * digit : digit;
+        }
+
+        int checkDigit = (10 - sum % 10) % 10;
+
+        return "978" + isbn10.subSequence(0, 9) + checkDigit;
+    }
+}
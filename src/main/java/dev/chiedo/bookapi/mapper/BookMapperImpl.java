@@ -3,9 +3,11 @@ package dev.chiedo.bookapi.mapper;
 import dev.chiedo.bookapi.model.dto.BookDto;
 import dev.chiedo.bookapi.model.entity.BookEntity;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "books.mapper", havingValue = "modelmapper")
 public class BookMapperImpl implements IMapper<BookEntity, BookDto> {
 
     private final ModelMapper modelMapper;
@@ -0,0 +1,46 @@
+package dev.chiedo.bookapi.mapper;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies fields directly instead of resolving ModelMapper type maps through
+ * reflection on every call. Set {@code books.mapper=modelmapper} to switch back
+ * to {@link BookMapperImpl}.
+ */
+@Component
+@ConditionalOnProperty(name = "books.mapper", havingValue = "direct", matchIfMissing = true)
+public class DirectBookMapperImpl implements IMapper<BookEntity, BookDto> {
+
+    @Override
+    public BookDto mapTo(BookEntity bookEntity) {
+        if (bookEntity == null) {
+            return null;
+        }
+
+        return new BookDto(
+                bookEntity.getBookId(),
+                bookEntity.getTitle(),
+                bookEntity.getAuthor(),
+                bookEntity.getDescription(),
+                bookEntity.getIsbn(),
+                bookEntity.getVersion());
+    }
+
+    @Override
+    public BookEntity mapFrom(BookDto bookDto) {
+        if (bookDto == null) {
+            return null;
+        }
+
+        return new BookEntity(
+                bookDto.getBookId(),
+                bookDto.getTitle(),
+                bookDto.getAuthor(),
+                bookDto.getDescription(),
+                bookDto.getIsbn(),
+                bookDto.getVersion());
+    }
+}
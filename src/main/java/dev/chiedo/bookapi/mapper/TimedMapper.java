@@ -0,0 +1,53 @@
+package dev.chiedo.bookapi.mapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time spent in each direction of a mapper as
+ * {@code books.mapper{mapper=..., method=mapTo|mapFrom}}. The timers are
+ * registered once up front; a mapping takes well under a microsecond, so
+ * looking the meter up on every call would cost more than the mapping.
+ */
+public class TimedMapper<A, B> implements IMapper<A, B> {
+
+    private final IMapper<A, B> delegate;
+    private final Timer mapTo;
+    private final Timer mapFrom;
+
+    public TimedMapper(IMapper<A, B> delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.mapTo = timer(meterRegistry, delegate, "mapTo");
+        this.mapFrom = timer(meterRegistry, delegate, "mapFrom");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, IMapper<?, ?> delegate, String method) {
+        return Timer.builder("books.mapper")
+                .description("Time to map between entity and dto")
+                .tag("mapper", delegate.getClass().getSimpleName())
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public B mapTo(A a) {
+        long start = System.nanoTime();
+        try {
+            return delegate.mapTo(a);
+        } finally {
+            mapTo.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public A mapFrom(B b) {
+        long start = System.nanoTime();
+        try {
+            return delegate.mapFrom(b);
+        } finally {
+            mapFrom.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.chiedo.bookapi.model.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of recounting the books of every author and comparing the counts with
+ * the maintained ones.
+ *
+ * @param authors    authors that have books
+ * @param mismatches authors whose maintained count differed, by author
+ * @param rebuilt    whether the maintained counts were replaced with the recounted ones
+ */
+public record AuthorStatsCheckDto(long authors, List<Mismatch> mismatches, boolean rebuilt) {
+
+    /**
+     * @param counted the number of books the author has
+     * @param stored  the number that was maintained, 0 when the author had no row
+     */
+    public record Mismatch(String author, long counted, long stored) {
+    }
+}
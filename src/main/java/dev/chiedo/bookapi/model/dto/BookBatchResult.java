@@ -0,0 +1,29 @@
+package dev.chiedo.bookapi.model.dto;
+
+/**
+ * Outcome of one item of a bulk request.
+ *
+ * @param index position of the item in the request
+ */
+public record BookBatchResult(int index, Long bookId, Status status, String message) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    public static BookBatchResult of(int index, Long bookId, Status status) {
+        return new BookBatchResult(index, bookId, status, null);
+    }
+
+    public static BookBatchResult invalid(int index, Long bookId, String message) {
+        return new BookBatchResult(index, bookId, Status.INVALID, message);
+    }
+
+    public BookBatchResult withIndex(int index) {
+        return new BookBatchResult(index, bookId, status, message);
+    }
+}
@@ -0,0 +1,25 @@
+package dev.chiedo.bookapi.model.dto;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Changes to the catalog after a sequence number, oldest first.
+ *
+ * @param next pass as {@code since} to continue after these changes
+ * @param more whether further changes are already waiting
+ */
+public record BookChangesDto(List<Change> changes, long next, boolean more) {
+
+    public static BookChangesDto none(long since) {
+        return new BookChangesDto(List.of(), since, false);
+    }
+
+    /**
+     * @param book the book after the change, {@code null} for {@link BookChangedEvent.Type#DELETED}
+     */
+    public record Change(long seq, BookChangedEvent.Type type, long bookId, BookDto book, Instant changedAt) {
+    }
+}
@@ -1,6 +1,8 @@
 package dev.chiedo.bookapi.model.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
@@ -22,6 +24,11 @@ public class BookDto {
     @NotEmpty
     private String isbn;
 
+    // set by the server, also sent as the ETag; clients send If-Match instead
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     public Long getBookId() {
         return bookId;
     }
@@ -61,4 +68,12 @@ public class BookDto {
     public void setIsbn(String isbn) {
         this.isbn = isbn;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
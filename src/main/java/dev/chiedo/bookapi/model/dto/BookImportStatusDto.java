@@ -0,0 +1,37 @@
+package dev.chiedo.bookapi.model.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk import.
+ *
+ * @param bytesParsed of {@code totalBytes}, counted as chunks of the file are handed to the writers
+ * @param lines       lines read so far, not counting a CSV header or blank lines
+ * @param errors      the first failed lines, in no particular order; {@code failed} counts all of them
+ * @param failure     why the import stopped early, for state {@code FAILED}
+ */
+public record BookImportStatusDto(UUID id,
+                                  State state,
+                                  String format,
+                                  long totalBytes,
+                                  long bytesParsed,
+                                  long lines,
+                                  long imported,
+                                  long failed,
+                                  List<LineError> errors,
+                                  Instant startedAt,
+                                  Instant finishedAt,
+                                  String failure) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record LineError(long line, String message) {
+    }
+}
@@ -0,0 +1,68 @@
+package dev.chiedo.bookapi.model.dto;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update of a book: fields left out (or null) keep their current value. A field
+ * that is sent must not be blank.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Fields of a book to change; absent fields are left as they are")
+public class BookPatchDto {
+
+    private static final String NOT_BLANK = "(?s).*\\S.*";
+
+    @Size(min = 1, max = 50)
+    @Pattern(regexp = NOT_BLANK)
+    private String title;
+
+    @Size(min = 1, max = 50)
+    @Pattern(regexp = NOT_BLANK)
+    private String author;
+
+    @Size(min = 1, max = 256)
+    @Pattern(regexp = NOT_BLANK)
+    private String description;
+
+    @Size(min = 1, max = 50)
+    @Pattern(regexp = NOT_BLANK)
+    private String isbn;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+}
@@ -0,0 +1,15 @@
+package dev.chiedo.bookapi.model.dto;
+
+import java.util.List;
+
+/**
+ * One page of full-text search results, best match first.
+ *
+ * @param total number of books matching the query
+ * @param page  zero-based page number
+ */
+public record BookSearchPageDto(String query, long total, int page, int size, List<Hit> hits) {
+
+    public record Hit(double score, BookDto book) {
+    }
+}
@@ -0,0 +1,14 @@
+package dev.chiedo.bookapi.model.dto;
+
+import java.util.List;
+
+/**
+ * Totals of the catalog and the authors with the most books.
+ *
+ * @param topAuthors most books first, ties by author
+ */
+public record BookStatsDto(long books, long authors, List<AuthorCount> topAuthors) {
+
+    public record AuthorCount(String author, long books) {
+    }
+}
@@ -0,0 +1,14 @@
+package dev.chiedo.bookapi.model.dto;
+
+/**
+ * A title or author starting with what the user has typed so far.
+ *
+ * @param books number of books with this title or by this author
+ */
+public record BookSuggestionDto(String text, Type type, long books) {
+
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+}
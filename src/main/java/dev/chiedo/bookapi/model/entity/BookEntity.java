@@ -6,21 +6,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "books")
+@DynamicUpdate
 @AllArgsConstructor
 @NoArgsConstructor
 @Schema(description = "Book entity")
 public class BookEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     @Column(name = "book_id")
     private Long bookId;
 
@@ -42,6 +47,10 @@ public class BookEntity {
     @Column(name = "isbn")
     private String isbn;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public Long getBookId() {
         return bookId;
     }
@@ -81,4 +90,12 @@ public class BookEntity {
     public void setIsbn(String isbn) {
         this.isbn = isbn;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,43 @@
+package dev.chiedo.bookapi.pagination;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last book returned on a page. Encoded as an opaque, URL-safe
+ * token so clients cannot depend on its layout.
+ */
+public record BookCursor(BookSort sort, long bookId, String title) {
+
+    private static final char SEPARATOR = ':';
+
+    public static BookCursor after(BookSort sort, BookDto lastBook) {
+        return new BookCursor(sort, lastBook.getBookId(), sort == BookSort.TITLE ? lastBook.getTitle() : null);
+    }
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + bookId + (title == null ? "" : SEPARATOR + title);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), 3);
+
+            BookSort sort = BookSort.valueOf(parts[0]);
+            long bookId = Long.parseLong(parts[1]);
+
+            if (sort == BookSort.TITLE && parts.length < 3) {
+                throw new IllegalArgumentException("Title cursor without title");
+            }
+
+            return new BookCursor(sort, bookId, sort == BookSort.TITLE ? parts[2] : null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
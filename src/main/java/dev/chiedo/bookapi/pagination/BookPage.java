@@ -0,0 +1,13 @@
+package dev.chiedo.bookapi.pagination;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+
+import java.util.List;
+import java.util.Optional;
+
+public record BookPage(List<BookDto> books, BookCursor next) {
+
+    public Optional<BookCursor> nextCursor() {
+        return Optional.ofNullable(next);
+    }
+}
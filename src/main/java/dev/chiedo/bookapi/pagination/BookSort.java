@@ -0,0 +1,13 @@
+package dev.chiedo.bookapi.pagination;
+
+import java.util.Locale;
+
+public enum BookSort {
+
+    ID,
+    TITLE;
+
+    public static BookSort fromParameter(String value) {
+        return BookSort.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
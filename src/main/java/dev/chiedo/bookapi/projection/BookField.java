@@ -0,0 +1,51 @@
+package dev.chiedo.bookapi.projection;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The fields of a book a client can ask for with {@code fields=}. Each is named the
+ * same on {@code BookDto} and on {@code BookEntity}, in the order the full
+ * representation writes them.
+ */
+public enum BookField {
+
+    BOOK_ID("bookId"),
+    TITLE("title"),
+    AUTHOR("author"),
+    DESCRIPTION("description"),
+    ISBN("isbn"),
+    VERSION("version");
+
+    private final String property;
+
+    BookField(String property) {
+        this.property = property;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    /**
+     * Parses a comma-separated list of property names, such as {@code bookId,title,author}.
+     */
+    public static Set<BookField> fromParameter(String value) {
+        Set<BookField> fields = EnumSet.noneOf(BookField.class);
+
+        for (String name : value.split(",")) {
+            fields.add(fromProperty(name.trim()));
+        }
+
+        return fields;
+    }
+
+    private static BookField fromProperty(String property) {
+        for (BookField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown book field " + property);
+    }
+}
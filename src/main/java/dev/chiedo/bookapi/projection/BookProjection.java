@@ -0,0 +1,17 @@
+package dev.chiedo.bookapi.projection;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Some of the fields of a book, written as an object holding just those. The version
+ * is kept for the ETag whether or not it was asked for.
+ */
+public record BookProjection(long version, Map<String, Object> fields) {
+
+    @JsonValue
+    public Map<String, Object> fields() {
+        return fields;
+    }
+}
@@ -0,0 +1,13 @@
+package dev.chiedo.bookapi.projection;
+
+import dev.chiedo.bookapi.pagination.BookCursor;
+
+import java.util.List;
+import java.util.Optional;
+
+public record BookProjectionPage(List<BookProjection> books, BookCursor next) {
+
+    public Optional<BookCursor> nextCursor() {
+        return Optional.ofNullable(next);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Caps the number of requests being served at once, adjusting the cap by AIMD: every
+ * request answered within the latency target raises it by 1/limit (about one per
+ * round of requests) while the cap is actually in use, every slower one lowers it by
+ * the backoff ratio. Requests over the cap are refused at once rather than queued,
+ * so when the database slows down the queue stays short and latency stays bounded.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // a double, as raw bits, so it can be updated without a lock
+    private final AtomicLong limit;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    Duration latencyTarget, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    /**
+     * @return whether the request may proceed; if so, {@link #release} must follow
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+
+        if (latencyNanos > latencyTargetNanos) {
+            update(value -> Math.max(minLimit, value * backoffRatio));
+        } else if (current * 2 >= limit()) {
+            // only grow while the limit is what stands between requests and the server
+            update(value -> Math.min(maxLimit, value + 1 / value));
+        }
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator function) {
+        limit.updateAndGet(bits -> Double.doubleToLongBits(function.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Gives each remote address a token bucket of failed authentications. A request with
+ * credentials takes a token before the password is checked and gives it back unless it
+ * is answered 401, so concurrent guesses are counted too; once the bucket is empty,
+ * requests with credentials are answered 429, and guessing passwords cannot keep the
+ * server busy with BCrypt.
+ * <p>
+ * Runs in the security filter chain before authentication; {@link RateLimitFilter}
+ * limits the requests that get past it.
+ */
+public class AuthenticationFailureLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationFailureLimitFilter.class);
+
+    private final RateLimitProperties.Limit limit;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rejected;
+
+    public AuthenticationFailureLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.limit = properties.authenticationFailures().limit();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxClients())
+                .expireAfterAccess(properties.idleTimeout())
+                .build();
+        this.rejected = Counter.builder("books.ratelimit.rejected")
+                .tag("route", "authentication")
+                .tag("reason", "failures")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.AUTHORIZATION) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String address = request.getRemoteAddr();
+        TokenBucket bucket = buckets.get(address, key -> new TokenBucket(limit.requestsPerSecond(), limit.burst()));
+
+        long waitNanos = bucket.tryTake();
+        if (waitNanos > 0) {
+            rejected.increment();
+            LOGGER.debug("Too many failed authentications from {}", address);
+            RateLimitFilter.reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (response.getStatus() != HttpStatus.UNAUTHORIZED.value()) {
+                bucket.refund();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits {@code /api/**} in two ways. Each client (the authenticated user, else the
+ * remote address) gets a token bucket per route, so one client cannot crowd out the
+ * others; over its rate it is answered 429. Behind that, an
+ * {@link AdaptiveConcurrencyLimit} caps the requests being served at once; over the
+ * cap a request is answered 503 straight away instead of queueing. Imports and batches
+ * take long by design and are left out of it.
+ * <p>
+ * Runs in the security filter chain after authentication, so users are told apart
+ * even when they share an address. Failed authentications are limited before that by
+ * {@link AuthenticationFailureLimitFilter}.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final RequestMatcher API = new AntPathRequestMatcher("/api/**");
+
+    private final List<LimitedRoute> routes = new ArrayList<>();
+    private final LimitedRoute defaultRoute;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final List<RequestMatcher> unlimited = new ArrayList<>();
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter shed;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        for (Map.Entry<String, RateLimitProperties.Route> route : new TreeMap<>(properties.routes()).entrySet()) {
+            RateLimitProperties.Route config = route.getValue();
+            routes.add(new LimitedRoute(route.getKey(),
+                    new AntPathRequestMatcher(config.pattern(), config.method()), config.limit(), meterRegistry));
+        }
+        this.defaultRoute = new LimitedRoute("default", API, properties.defaults(), meterRegistry);
+
+        RateLimitProperties.Adaptive adaptive = properties.adaptive();
+        this.concurrencyLimit = adaptive.enabled()
+                ? new AdaptiveConcurrencyLimit(adaptive.initialLimit(), adaptive.minLimit(), adaptive.maxLimit(),
+                        adaptive.latencyTarget(), adaptive.backoffRatio())
+                : null;
+        adaptive.excluded().forEach(pattern -> unlimited.add(new AntPathRequestMatcher(pattern)));
+
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxClients())
+                .expireAfterAccess(properties.idleTimeout())
+                .recordStats()
+                .build();
+
+        this.shed = Counter.builder("books.ratelimit.rejected")
+                .tag("route", "all")
+                .tag("reason", "overload")
+                .register(meterRegistry);
+
+        if (concurrencyLimit != null) {
+            Gauge.builder("books.ratelimit.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                    .register(meterRegistry);
+            Gauge.builder("books.ratelimit.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                    .register(meterRegistry);
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !API.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LimitedRoute route = route(request);
+        String client = client(request);
+
+        long waitNanos = buckets.get(route.name + '|' + client, key -> route.newBucket()).tryTake();
+        if (waitNanos > 0) {
+            route.rejected.increment();
+            LOGGER.debug("Rate limited {} on route {}", client, route.name);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+            return;
+        }
+
+        if (concurrencyLimit == null || unlimited(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!concurrencyLimit.tryAcquire()) {
+            shed.increment();
+            LOGGER.debug("Shed {} at concurrency limit {}", request.getRequestURI(), concurrencyLimit.limit());
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+
+        // a long poll leaves here once it is parked, so it does not hold its place
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start);
+        }
+    }
+
+    private LimitedRoute route(HttpServletRequest request) {
+        for (LimitedRoute route : routes) {
+            if (route.matcher.matches(request)) {
+                return route;
+            }
+        }
+        return defaultRoute;
+    }
+
+    private boolean unlimited(HttpServletRequest request) {
+        for (RequestMatcher matcher : unlimited) {
+            if (matcher.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+
+        // the proxy's address unless server.forward-headers-strategy is set
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    private static final class LimitedRoute {
+
+        private final String name;
+        private final RequestMatcher matcher;
+        private final RateLimitProperties.Limit limit;
+        private final Counter rejected;
+
+        private LimitedRoute(String name, RequestMatcher matcher, RateLimitProperties.Limit limit,
+                             MeterRegistry meterRegistry) {
+            this.name = name;
+            this.matcher = matcher;
+            this.limit = limit;
+            this.rejected = Counter.builder("books.ratelimit.rejected")
+                    .tag("route", name)
+                    .tag("reason", "rate")
+                    .register(meterRegistry);
+            Gauge.builder("books.ratelimit.rate", limit, RateLimitProperties.Limit::requestsPerSecond)
+                    .tag("route", name)
+                    .description("Requests per second allowed to each client")
+                    .register(meterRegistry);
+        }
+
+        private TokenBucket newBucket() {
+            return new TokenBucket(limit.requestsPerSecond(), limit.burst());
+        }
+    }
+}
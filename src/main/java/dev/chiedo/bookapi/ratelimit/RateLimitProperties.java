@@ -0,0 +1,75 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code books.rate-limit.*}: token buckets per client and route, and the adaptive
+ * concurrency limit shared by all of {@code /api/**}.
+ *
+ * @param routes     named routes, matched in name order; {@code /api/**} requests
+ *                   matching none get {@code defaults}
+ * @param maxClients buckets kept at most; the least recently used are dropped first
+ * @param idleTimeout a bucket unused this long is dropped (and so starts full again)
+ * @param authenticationFailures failed Basic authentications allowed to each remote address
+ */
+@ConfigurationProperties("books.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue Limit defaults,
+                                  Map<String, Route> routes,
+                                  @DefaultValue("100000") long maxClients,
+                                  @DefaultValue("10m") Duration idleTimeout,
+                                  @DefaultValue AuthenticationFailures authenticationFailures,
+                                  @DefaultValue Adaptive adaptive) {
+
+    public RateLimitProperties {
+        routes = routes == null ? Map.of() : routes;
+    }
+
+    /**
+     * @param requestsPerSecond sustained rate per client
+     * @param burst             requests a client that has been idle may send at once
+     */
+    public record Limit(@DefaultValue("50") double requestsPerSecond,
+                        @DefaultValue("100") int burst) {
+    }
+
+    /**
+     * @param method  HTTP method, or any when not set
+     * @param pattern Ant-style path pattern
+     */
+    public record Route(String method, String pattern, double requestsPerSecond, int burst) {
+
+        public Limit limit() {
+            return new Limit(requestsPerSecond, burst);
+        }
+    }
+
+    public record AuthenticationFailures(@DefaultValue("1") double requestsPerSecond,
+                                         @DefaultValue("10") int burst) {
+
+        public Limit limit() {
+            return new Limit(requestsPerSecond, burst);
+        }
+    }
+
+    /**
+     * @param latencyTarget requests slower than this shrink the limit
+     * @param backoffRatio  what a slow request multiplies the limit by
+     * @param excluded      Ant-style path patterns of requests that are slow by nature, such
+     *                      as imports and batches, which neither count against the limit nor
+     *                      adjust it
+     */
+    public record Adaptive(@DefaultValue("true") boolean enabled,
+                           @DefaultValue("50") int initialLimit,
+                           @DefaultValue("4") int minLimit,
+                           @DefaultValue("500") int maxLimit,
+                           @DefaultValue("250ms") Duration latencyTarget,
+                           @DefaultValue("0.9") double backoffRatio,
+                           @DefaultValue({"/api/v1/books/import/**", "/api/v1/books/batch"}) List<String> excluded) {
+    }
+}
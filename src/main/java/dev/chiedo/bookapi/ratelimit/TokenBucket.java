@@ -0,0 +1,51 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as a single timestamp (the generic cell rate algorithm): the
+ * time at which the bucket would be full again. Taking a token is one compare-and-set,
+ * so concurrent requests of the same client never block each other.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+
+    // System.nanoTime() at which the bucket is full again
+    private final AtomicLong fullAt;
+
+    TokenBucket(double tokensPerSecond, int capacity) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until there is one
+     */
+    long tryTake() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryTake()}.
+     */
+    void refund() {
+        fullAt.addAndGet(-nanosPerToken);
+    }
+}
@@ -1,9 +1,51 @@
 package dev.chiedo.bookapi.repository;
 
 import dev.chiedo.bookapi.model.entity.BookEntity;
-import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface BookRepository extends CrudRepository<BookEntity, Long> {
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookRepository extends JpaRepository<BookEntity, Long>, BookRepositoryCustom {
 
     BookEntity findByTitle(String title);
+
+    @Query("select b.version from BookEntity b where b.bookId = :bookId")
+    Optional<Long> findVersionById(@Param("bookId") long bookId);
+
+    // isbn_normalized is generated by the database (see V5) and not mapped on the entity
+    @Query(value = "select * from books where isbn_normalized = :isbn", nativeQuery = true)
+    Optional<BookEntity> findByNormalizedIsbn(@Param("isbn") String normalizedIsbn);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select isbn_normalized from books", nativeQuery = true)
+    Stream<String> streamNormalizedIsbns();
+
+    // Keyset (seek) queries: each page starts from an index position instead of
+    // skipping over an offset, so a deep page costs the same as the first one.
+    List<BookEntity> findByBookIdGreaterThanOrderByBookIdAsc(long bookId, Limit limit);
+
+    @Query("select b from BookEntity b " +
+            "where b.title > :title or (b.title = :title and b.bookId > :bookId) " +
+            "order by b.title asc, b.bookId asc")
+    List<BookEntity> findPageAfterTitle(@Param("title") String title, @Param("bookId") long bookId, Limit limit);
+
+    @Query("select b from BookEntity b order by b.title asc, b.bookId asc")
+    List<BookEntity> findFirstPageByTitle(Limit limit);
+
+    // Must be consumed inside a transaction and closed; rows are fetched from a
+    // cursor in batches rather than loaded up front.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from BookEntity b order by b.bookId asc")
+    Stream<BookEntity> streamAll();
 }
@@ -0,0 +1,50 @@
+package dev.chiedo.bookapi.repository;
+
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes that take a single statement each, and reads of some columns only. The
+ * writes return the row as it was before the statement, or nothing when no row matched.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Sets the non-null fields of {@code changes} and increments the version.
+     *
+     * @param expectedVersion when not {@code null}, only a row at this version is updated
+     */
+    Optional<BookEntity> updateReturningPrevious(long bookId, BookEntity changes, Long expectedVersion);
+
+    /**
+     * Sets every field of {@code book}, nulls included, and increments the version.
+     *
+     * @param expectedVersion when not {@code null}, only a row at this version is replaced
+     */
+    Optional<BookEntity> replaceReturningPrevious(long bookId, BookEntity book, Long expectedVersion);
+
+    /**
+     * @param expectedVersion when not {@code null}, only a row at this version is deleted
+     */
+    Optional<BookEntity> deleteReturningPrevious(long bookId, Long expectedVersion);
+
+    /**
+     * A keyset page like {@code findByBookIdGreaterThanOrderByBookIdAsc} and
+     * {@code findPageAfterTitle}, reading only the columns of {@code fields}. Each tuple
+     * also holds {@code bookId} and {@code version}, and {@code title} when sorting by it,
+     * under their property names.
+     */
+    List<Tuple> findProjectedPage(Set<BookField> fields, BookSort sort, BookCursor after, int limit);
+
+    /**
+     * The columns of {@code fields} and the {@code version} of one book.
+     */
+    Optional<Tuple> findProjectedById(long bookId, Set<BookField> fields);
+}
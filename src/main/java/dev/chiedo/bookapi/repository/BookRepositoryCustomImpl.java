@@ -0,0 +1,162 @@
+package dev.chiedo.bookapi.repository;
+
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * H2 returns the rows a data change statement touched from {@code OLD TABLE (...)},
+ * so the write, the affected row count and the previous state all come back in a
+ * single round trip.
+ * <p>
+ * Projected reads select scalar attributes into tuples, so the columns left out are
+ * neither read nor hydrated, and nothing enters the persistence context.
+ */
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String COLUMNS = "book_id, title, author, description, isbn, version";
+
+    private final EntityManager entityManager;
+
+    // constructor injection
+    BookRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<BookEntity> updateReturningPrevious(long bookId, BookEntity changes, Long expectedVersion) {
+        // only the columns that change are written
+        return update(bookId, changes, expectedVersion, false);
+    }
+
+    @Override
+    public Optional<BookEntity> replaceReturningPrevious(long bookId, BookEntity book, Long expectedVersion) {
+        return update(bookId, book, expectedVersion, true);
+    }
+
+    private Optional<BookEntity> update(long bookId, BookEntity changes, Long expectedVersion, boolean nulls) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder update = new StringBuilder("UPDATE books SET ");
+
+        set(update, parameters, "title", changes.getTitle(), nulls);
+        set(update, parameters, "author", changes.getAuthor(), nulls);
+        set(update, parameters, "description", changes.getDescription(), nulls);
+        set(update, parameters, "isbn", changes.getIsbn(), nulls);
+        update.append("version = version + 1");
+
+        return previous(where(update, parameters, bookId, expectedVersion), parameters);
+    }
+
+    @Override
+    public Optional<BookEntity> deleteReturningPrevious(long bookId, Long expectedVersion) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder delete = new StringBuilder("DELETE FROM books");
+
+        return previous(where(delete, parameters, bookId, expectedVersion), parameters);
+    }
+
+    private static void set(StringBuilder update, List<Object> parameters, String column, String value, boolean nulls) {
+        if (value == null && nulls) {
+            update.append(column).append(" = NULL, ");
+        } else if (value != null) {
+            parameters.add(value);
+            update.append(column).append(" = ?").append(parameters.size()).append(", ");
+        }
+    }
+
+    private static String where(StringBuilder statement, List<Object> parameters, long bookId, Long expectedVersion) {
+        parameters.add(bookId);
+        statement.append(" WHERE book_id = ?").append(parameters.size());
+
+        if (expectedVersion != null) {
+            parameters.add(expectedVersion);
+            statement.append(" AND version = ?").append(parameters.size());
+        }
+
+        return statement.toString();
+    }
+
+    private Optional<BookEntity> previous(String statement, List<Object> parameters) {
+        Query query = entityManager.createNativeQuery("SELECT " + COLUMNS + " FROM OLD TABLE (" + statement + ")");
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+
+        // book_id is the primary key, so at most one row
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new BookEntity(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                ((Number) row[5]).longValue()));
+    }
+
+    @Override
+    public List<Tuple> findProjectedPage(Set<BookField> fields, BookSort sort, BookCursor after, int limit) {
+        Set<BookField> selected = EnumSet.copyOf(fields);
+        StringBuilder select = new StringBuilder();
+
+        if (sort == BookSort.TITLE) {
+            // the cursor of the next page needs the last title
+            selected.add(BookField.TITLE);
+            select.append(select(selected));
+            if (after != null) {
+                select.append(" where b.title > :title or (b.title = :title and b.bookId > :bookId)");
+            }
+            select.append(" order by b.title asc, b.bookId asc");
+        } else {
+            select.append(select(selected));
+            if (after != null) {
+                select.append(" where b.bookId > :bookId");
+            }
+            select.append(" order by b.bookId asc");
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(select.toString(), Tuple.class).setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("bookId", after.bookId());
+            if (sort == BookSort.TITLE) {
+                query.setParameter("title", after.title());
+            }
+        }
+
+        return query.getResultList();
+    }
+
+    @Override
+    public Optional<Tuple> findProjectedById(long bookId, Set<BookField> fields) {
+        return entityManager.createQuery(select(fields) + " where b.bookId = :bookId", Tuple.class)
+                .setParameter("bookId", bookId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    private static String select(Set<BookField> fields) {
+        Set<BookField> selected = EnumSet.copyOf(fields);
+        selected.add(BookField.BOOK_ID);
+        selected.add(BookField.VERSION);
+
+        return selected.stream()
+                .map(field -> "b." + field.property() + " as " + field.property())
+                .collect(Collectors.joining(", ", "select ", " from BookEntity b"));
+    }
+}
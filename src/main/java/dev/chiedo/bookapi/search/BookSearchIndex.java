@@ -0,0 +1,149 @@
+package dev.chiedo.bookapi.search;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory full-text index over title, author and description. Searches share
+ * a read lock; changes take the write lock for the few microseconds it takes to
+ * update the postings.
+ */
+@Component
+public class BookSearchIndex {
+
+    // accumulators sized for more documents than this are not kept for reuse
+    private static final int MAX_POOLED_CAPACITY = 4 * 1024 * 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<ScoreAccumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    // changes made while a rebuild is reading the database, replayed onto the new index
+    private List<Consumer<InvertedIndex>> changedDuringRebuild;
+
+    public void index(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            add(index, book);
+            compactIfNeeded();
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(target -> add(target, book));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(bookId);
+            compactIfNeeded();
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(target -> target.remove(bookId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new index from {@code source} and swaps it in. The current index
+     * keeps serving searches and taking changes until the swap.
+     *
+     * @param source feeds every book to the consumer it is given
+     * @return the number of books in the new index
+     */
+    public int rebuild(Consumer<Consumer<BookDto>> source) {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex rebuilt = new InvertedIndex();
+        try {
+            source.accept(book -> add(rebuilt, book));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changedDuringRebuild = null;
+            index = rebuilt;
+            return rebuilt.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param page zero-based page number
+     */
+    public SearchResult search(String query, int page, int size) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+
+        if (terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        ScoreAccumulator accumulator = accumulators.poll();
+        if (accumulator == null) {
+            accumulator = new ScoreAccumulator();
+        }
+
+        try {
+            lock.readLock().lock();
+            try {
+                return index.search(terms, Math.multiplyExact(page, size), size, accumulator);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            accumulator.clear();
+            if (accumulator.capacity() <= MAX_POOLED_CAPACITY) {
+                accumulators.offer(accumulator);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // updates leave deleted documents behind as well as removes do
+    private void compactIfNeeded() {
+        if (index.needsCompaction()) {
+            index.compact();
+            // pooled accumulators are sized for the ordinals before compaction
+            accumulators.clear();
+        }
+    }
+
+    private static void add(InvertedIndex target, BookDto book) {
+        target.add(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription());
+    }
+}
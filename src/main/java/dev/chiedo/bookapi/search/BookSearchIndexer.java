@@ -0,0 +1,73 @@
+package dev.chiedo.bookapi.search;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link BookSearchIndex} in step with the database: a full rebuild once
+ * the application is ready, then every committed change.
+ */
+@Component
+public class BookSearchIndexer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndexer.class);
+
+    private final BookSearchIndex searchIndex;
+    private final BookRepository bookRepository;
+    private final IMapper<BookEntity, BookDto> bookMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // constructor injection
+    public BookSearchIndexer(BookSearchIndex searchIndex,
+                             BookRepository bookRepository,
+                             IMapper<BookEntity, BookDto> bookMapper,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.searchIndex = searchIndex;
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        int size = searchIndex.rebuild(sink -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookEntity> books = bookRepository.streamAll()) {
+                books.forEach(book -> {
+                    sink.accept(bookMapper.mapTo(book));
+                    entityManager.detach(book);
+                });
+            }
+        }));
+
+        LOGGER.info("Indexed {} books for search in {} ms", size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.after() != null) {
+            searchIndex.index(event.after());
+        } else {
+            searchIndex.remove(event.bookId());
+        }
+    }
+}
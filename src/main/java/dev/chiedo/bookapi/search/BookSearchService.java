@@ -0,0 +1,55 @@
+package dev.chiedo.bookapi.search;
+
+import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookSearchPageDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.repository.BookRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+@Service
+public class BookSearchService {
+
+    private final BookSearchIndex searchIndex;
+    private final BookRepository bookRepository;
+    private final IMapper<BookEntity, BookDto> bookMapper;
+
+    // constructor injection
+    public BookSearchService(BookSearchIndex searchIndex,
+                             BookRepository bookRepository,
+                             IMapper<BookEntity, BookDto> bookMapper) {
+        this.searchIndex = searchIndex;
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+    }
+
+    /**
+     * Ranks the catalog against {@code query} in memory, then loads the books of
+     * the requested page with a single query.
+     */
+    public BookSearchPageDto search(String query, int page, int size) {
+        SearchResult result = searchIndex.search(query, page, size);
+
+        List<Long> bookIds = result.hits().stream().map(SearchHit::bookId).toList();
+        Map<Long, BookEntity> books = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(BookEntity::getBookId, Function.identity()));
+
+        List<BookSearchPageDto.Hit> hits = new ArrayList<>(bookIds.size());
+        for (SearchHit hit : result.hits()) {
+            BookEntity book = books.get(hit.bookId());
+            // deleted after the index was read
+            if (book != null) {
+                hits.add(new BookSearchPageDto.Hit(hit.score(), bookMapper.mapTo(book)));
+            }
+        }
+
+        return new BookSearchPageDto(query, result.total(), page, size, hits);
+    }
+}
@@ -0,0 +1,260 @@
+package dev.chiedo.bookapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Term to document postings for title, author and description, ranked with
+ * BM25 per field and summed with field boosts. Not thread-safe; see
+ * {@link BookSearchIndex} for the locking.
+ * <p>
+ * Documents get an ordinal when added, and a changed book is added again under a
+ * new one. Removing a book only marks its ordinal deleted; postings of deleted
+ * documents are skipped when scoring until {@link #compact()} drops them and
+ * renumbers the live documents.
+ */
+final class InvertedIndex {
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int FIELDS = 3;
+
+    private static final float[] BOOSTS = {3.0f, 2.0f, 1.0f};
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final List<Map<String, Postings>> postings = new ArrayList<>(FIELDS);
+    private final long[] totalLengths = new long[FIELDS];
+    private final int[][] lengths = new int[FIELDS][];
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] bookIds = new long[1024];
+    private int documents;
+    private int live;
+    private int deletedSinceCompaction;
+
+    InvertedIndex() {
+        for (int field = 0; field < FIELDS; field++) {
+            postings.add(new HashMap<>());
+            lengths[field] = new int[bookIds.length];
+        }
+    }
+
+    void add(long bookId, String title, String author, String description) {
+        remove(bookId);
+
+        if (documents == bookIds.length) {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            for (int field = 0; field < FIELDS; field++) {
+                lengths[field] = Arrays.copyOf(lengths[field], capacity);
+            }
+        }
+
+        int doc = documents++;
+        bookIds[doc] = bookId;
+        ordinals.put(bookId, doc);
+        live++;
+
+        addField(TITLE, doc, title);
+        addField(AUTHOR, doc, author);
+        addField(DESCRIPTION, doc, description);
+    }
+
+    private void addField(int field, int doc, String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+
+        lengths[field][doc] = tokens.size();
+        totalLengths[field] += tokens.size();
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        Map<String, Postings> fieldPostings = postings.get(field);
+        frequencies.forEach((term, frequency) ->
+                fieldPostings.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+    }
+
+    boolean remove(long bookId) {
+        Integer doc = ordinals.remove(bookId);
+
+        if (doc == null) {
+            return false;
+        }
+
+        deleted.set(doc);
+        live--;
+        deletedSinceCompaction++;
+        for (int field = 0; field < FIELDS; field++) {
+            totalLengths[field] -= lengths[field][doc];
+        }
+
+        return true;
+    }
+
+    int size() {
+        return live;
+    }
+
+    int documents() {
+        return documents;
+    }
+
+    boolean needsCompaction() {
+        return deletedSinceCompaction > 1024 && deletedSinceCompaction > live / 4;
+    }
+
+    void compact() {
+        int[] renumbered = new int[documents];
+        int next = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            renumbered[doc] = deleted.get(doc) ? -1 : next++;
+        }
+
+        // ordinals only ever move down, so the arrays can be rewritten in place
+        for (int doc = 0; doc < documents; doc++) {
+            int to = renumbered[doc];
+            if (to >= 0) {
+                bookIds[to] = bookIds[doc];
+                for (int field = 0; field < FIELDS; field++) {
+                    lengths[field][to] = lengths[field][doc];
+                }
+            }
+        }
+
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(next, 1)) << 1);
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        for (int field = 0; field < FIELDS; field++) {
+            lengths[field] = Arrays.copyOf(lengths[field], capacity);
+        }
+        ordinals.replaceAll((bookId, doc) -> renumbered[doc]);
+
+        for (Map<String, Postings> fieldPostings : postings) {
+            Iterator<Postings> iterator = fieldPostings.values().iterator();
+            while (iterator.hasNext()) {
+                Postings termPostings = iterator.next();
+                termPostings.renumber(renumbered);
+                if (termPostings.size == 0) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        deleted.clear();
+        documents = next;
+        deletedSinceCompaction = 0;
+    }
+
+    SearchResult search(List<String> terms, int offset, int limit, ScoreAccumulator accumulator) {
+        if (live == 0 || terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        accumulator.ensureCapacity(documents);
+
+        for (String term : new LinkedHashSet<>(terms)) {
+            for (int field = 0; field < FIELDS; field++) {
+                Postings termPostings = postings.get(field).get(term);
+                if (termPostings != null) {
+                    score(field, termPostings, accumulator);
+                }
+            }
+        }
+
+        int matches = accumulator.touchedCount();
+        int wanted = Math.min(offset + limit, matches);
+
+        // keep the best `wanted` documents in a min-heap
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(wanted, 1),
+                (a, b) -> compareRank(accumulator, b, a));
+        for (int i = 0; i < matches && wanted > 0; i++) {
+            int doc = accumulator.touched(i);
+            if (best.size() < wanted) {
+                best.add(doc);
+            } else if (compareRank(accumulator, doc, best.peek()) < 0) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort((a, b) -> compareRank(accumulator, a, b));
+
+        List<SearchHit> hits = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (int i = offset; i < ranked.size(); i++) {
+            int doc = ranked.get(i);
+            hits.add(new SearchHit(bookIds[doc], accumulator.score(doc)));
+        }
+
+        return new SearchResult(matches, hits);
+    }
+
+    private void score(int field, Postings termPostings, ScoreAccumulator accumulator) {
+        float idf = (float) Math.log(1 + (live - termPostings.size + 0.5) / (termPostings.size + 0.5));
+        float averageLength = Math.max(1f, (float) totalLengths[field] / live);
+        float weight = BOOSTS[field] * Math.max(idf, 0.01f);
+        int[] fieldLengths = lengths[field];
+
+        for (int i = 0; i < termPostings.size; i++) {
+            int doc = termPostings.docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+
+            int frequency = termPostings.frequencies[i];
+            float norm = K1 * (1 - B + B * fieldLengths[doc] / averageLength);
+            accumulator.add(doc, weight * frequency * (K1 + 1) / (frequency + norm));
+        }
+    }
+
+    // higher score first, then lower book id for a stable order
+    private int compareRank(ScoreAccumulator accumulator, int a, int b) {
+        int byScore = Float.compare(accumulator.score(b), accumulator.score(a));
+        return byScore != 0 ? byScore : Long.compare(bookIds[a], bookIds[b]);
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        // drops deleted documents, marked -1, and keeps the order of the rest
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            docs = Arrays.copyOf(docs, Math.max(kept, 2));
+            frequencies = Arrays.copyOf(frequencies, Math.max(kept, 2));
+        }
+    }
+}
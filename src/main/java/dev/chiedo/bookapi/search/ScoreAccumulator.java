@@ -0,0 +1,53 @@
+package dev.chiedo.bookapi.search;
+
+import java.util.Arrays;
+
+/**
+ * Per-query score table indexed by document ordinal. Instances are pooled and
+ * cleared through the list of touched documents, so a query does not allocate
+ * an array the size of the index.
+ */
+final class ScoreAccumulator {
+
+    private float[] scores = new float[0];
+    private int[] touched = new int[0];
+    private int touchedCount;
+
+    void ensureCapacity(int documents) {
+        if (scores.length < documents) {
+            int capacity = Math.max(documents, scores.length + (scores.length >> 1));
+            scores = Arrays.copyOf(scores, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+        }
+    }
+
+    void add(int doc, float score) {
+        if (scores[doc] == 0f) {
+            touched[touchedCount++] = doc;
+        }
+        scores[doc] += score;
+    }
+
+    float score(int doc) {
+        return scores[doc];
+    }
+
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int touched(int i) {
+        return touched[i];
+    }
+
+    int capacity() {
+        return scores.length;
+    }
+
+    void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0f;
+        }
+        touchedCount = 0;
+    }
+}
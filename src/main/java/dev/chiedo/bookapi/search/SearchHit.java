@@ -0,0 +1,4 @@
+package dev.chiedo.bookapi.search;
+
+public record SearchHit(long bookId, double score) {
+}
@@ -0,0 +1,9 @@
+package dev.chiedo.bookapi.search;
+
+import java.util.List;
+
+/**
+ * @param total number of matching books, of which {@code hits} is one page
+ */
+public record SearchResult(long total, List<SearchHit> hits) {
+}
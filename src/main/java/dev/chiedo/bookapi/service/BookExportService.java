@@ -0,0 +1,77 @@
+package dev.chiedo.bookapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+
+@Service
+public class BookExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final BookRepository bookRepository;
+    private final IMapper<BookEntity, BookDto> bookMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+
+    // constructor injection
+    public BookExportService(BookRepository bookRepository,
+                             IMapper<BookEntity, BookDto> bookMapper,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // flushing is done in batches below, not after every row
+        this.bookWriter = objectMapper.writerFor(BookDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes every book as one JSON document per line. Entities are detached as
+     * soon as they are written, so heap use does not grow with the catalog size.
+     *
+     * @return the number of books written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream outputStream) throws IOException {
+        long count = 0;
+
+        try (Stream<BookEntity> books = bookRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            for (BookEntity book : (Iterable<BookEntity>) books::iterator) {
+                bookWriter.writeValue(generator, bookMapper.mapTo(book));
+                generator.writeRaw('\n');
+                entityManager.detach(book);
+
+                // the first line goes out immediately, the rest in batches
+                if (++count == 1 || count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+
+            generator.flush();
+        }
+
+        return count;
+    }
+}
@@ -1,22 +1,51 @@
 package dev.chiedo.bookapi.service;
 
+import dev.chiedo.bookapi.model.dto.BookBatchResult;
 import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.projection.BookProjection;
+import dev.chiedo.bookapi.projection.BookProjectionPage;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 public interface BookService {
 
     List<BookDto> findAll();
 
+    BookPage findPage(BookSort sort, BookCursor after, int limit);
+
+    BookProjectionPage findPage(BookSort sort, BookCursor after, int limit, Set<BookField> fields);
+
     Optional<BookDto> findById(long bookId);
 
+    Optional<BookProjection> findById(long bookId, Set<BookField> fields);
+
+    Optional<Long> findVersion(long bookId);
+
+    long catalogVersion();
+
     BookDto findByTitle(String title);
 
+    Optional<BookDto> findByIsbn(String isbn);
+
     void save(BookDto bookDto);
 
-    void update(long bookId, BookDto bookDto);
+    boolean update(long bookId, BookDto bookDto);
+
+    Optional<BookDto> patch(long bookId, BookPatchDto patch, Long expectedVersion);
+
+    boolean delete(long bookId, Long expectedVersion);
+
+    List<BookBatchResult> saveAll(List<BookDto> bookDtos);
+
+    List<BookBatchResult> updateAll(List<BookDto> bookDtos);
 
-    void delete(BookDto bookDto);
+    List<BookBatchResult> deleteAll(List<Long> bookIds);
 }
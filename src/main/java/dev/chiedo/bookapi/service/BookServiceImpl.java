@@ -1,31 +1,65 @@
 package dev.chiedo.bookapi.service;
 
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.isbn.IsbnFilter;
+import dev.chiedo.bookapi.isbn.IsbnNormalizer;
 import dev.chiedo.bookapi.mapper.IMapper;
+import dev.chiedo.bookapi.model.dto.BookBatchResult;
 import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
 import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.projection.BookProjection;
+import dev.chiedo.bookapi.projection.BookProjectionPage;
 import dev.chiedo.bookapi.repository.BookRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 
+// books.service{class,method,exception}; cache hits in CachingBookService never get here
 @Service
+@Timed(value = "books.service", description = "Time spent in book service methods, database work included")
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final IMapper<BookEntity, BookDto> bookMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IsbnFilter isbnFilter;
+    private final CatalogVersion catalogVersion;
 
     // constructor injection
-    public BookServiceImpl(BookRepository bookRepository, IMapper<BookEntity, BookDto> bookMapper) {
+    public BookServiceImpl(BookRepository bookRepository,
+                           IMapper<BookEntity, BookDto> bookMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           IsbnFilter isbnFilter,
+                           CatalogVersion catalogVersion) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
+        this.eventPublisher = eventPublisher;
+        this.isbnFilter = isbnFilter;
+        this.catalogVersion = catalogVersion;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookDto> findAll() {
         List<BookEntity> employees = StreamSupport
                 .stream(
@@ -39,50 +73,293 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public BookPage findPage(BookSort sort, BookCursor after, int limit) {
+        // fetch one extra row to find out whether there is a next page
+        Limit fetchLimit = Limit.of(limit + 1);
+
+        List<BookEntity> entities;
+        if (sort == BookSort.TITLE) {
+            entities = after == null
+                    ? bookRepository.findFirstPageByTitle(fetchLimit)
+                    : bookRepository.findPageAfterTitle(after.title(), after.bookId(), fetchLimit);
+        } else {
+            entities = bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(
+                    after == null ? Long.MIN_VALUE : after.bookId(), fetchLimit);
+        }
+
+        boolean hasNext = entities.size() > limit;
+
+        List<BookDto> books = entities.stream()
+                .limit(limit)
+                .map(bookMapper::mapTo)
+                .toList();
+
+        BookCursor next = hasNext ? BookCursor.after(sort, books.get(books.size() - 1)) : null;
+
+        return new BookPage(books, next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookProjectionPage findPage(BookSort sort, BookCursor after, int limit, Set<BookField> fields) {
+        List<Tuple> rows = bookRepository.findProjectedPage(fields, sort, after, limit + 1);
+
+        List<BookProjection> books = rows.stream()
+                .limit(limit)
+                .map(row -> project(row, fields))
+                .toList();
+
+        BookCursor next = null;
+        if (rows.size() > limit) {
+            Tuple last = rows.get(limit - 1);
+            next = new BookCursor(sort, last.get("bookId", Long.class),
+                    sort == BookSort.TITLE ? last.get("title", String.class) : null);
+        }
+
+        return new BookProjectionPage(books, next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<BookDto> findById(long bookId) {
 
         return bookRepository.findById(bookId).map(bookMapper::mapTo);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<BookProjection> findById(long bookId, Set<BookField> fields) {
+        return bookRepository.findProjectedById(bookId, fields).map(row -> project(row, fields));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(long bookId) {
+        return bookRepository.findVersionById(bookId);
+    }
+
+    @Override
+    public long catalogVersion() {
+        return catalogVersion.current();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public BookDto findByTitle(String title) {
         BookEntity bookEntity = bookRepository.findByTitle(title);
         return bookMapper.mapTo(bookEntity);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BookDto> findByIsbn(String isbn) {
+        String normalizedIsbn = IsbnNormalizer.normalize(isbn);
+
+        if (normalizedIsbn.isEmpty() || !isbnFilter.mightContain(normalizedIsbn)) {
+            return Optional.empty();
+        }
+
+        Optional<BookEntity> bookEntity = bookRepository.findByNormalizedIsbn(normalizedIsbn);
+
+        if (bookEntity.isEmpty()) {
+            isbnFilter.recordFalsePositive();
+        }
+
+        return bookEntity.map(bookMapper::mapTo);
+    }
+
     @Override
     @Transactional
     public void save(BookDto bookDto) {
         BookEntity bookEntity = bookMapper.mapFrom(bookDto);
-        bookRepository.save(bookEntity);
+        // create always inserts; with a version attribute, Spring Data decides by the version
+        bookEntity.setBookId(null);
+        bookEntity.setVersion(null);
+        BookEntity saved = bookRepository.save(bookEntity);
+        catalogVersion.bump();
+
+        bookDto.setBookId(saved.getBookId());
+
+        eventPublisher.publishEvent(BookChangedEvent.created(bookMapper.mapTo(saved)));
+    }
+
+    @Override
+    @Transactional
+    public boolean update(long bookId, BookDto bookDto) {
+        BookEntity replacement = bookMapper.mapFrom(bookDto);
+
+        // a replacement, like updateAll: a field left out is cleared, not kept
+        return updateRow(bookId, replacement, bookDto.getVersion(), true).isPresent();
     }
 
     @Override
     @Transactional
-    public void update(long bookId, BookDto bookDto) {
-        // check if book exists
-        Optional<BookEntity> optionalBook = bookRepository.findById(bookId);
+    public Optional<BookDto> patch(long bookId, BookPatchDto patch, Long expectedVersion) {
+        BookEntity changes = new BookEntity(null, patch.getTitle(), patch.getAuthor(),
+                patch.getDescription(), patch.getIsbn(), null);
+
+        return updateRow(bookId, changes, expectedVersion, false);
+    }
 
-        if (optionalBook.isEmpty()) {
-            throw new RuntimeException("Book not found");
+    // a single UPDATE; the book as it was comes back from the same statement. Unless
+    // replacing, the null fields of the changes are left as they were.
+    private Optional<BookDto> updateRow(long bookId, BookEntity changes, Long expectedVersion, boolean replace) {
+        Optional<BookEntity> previous = replace
+                ? bookRepository.replaceReturningPrevious(bookId, changes, expectedVersion)
+                : bookRepository.updateReturningPrevious(bookId, changes, expectedVersion);
+
+        if (previous.isEmpty()) {
+            checkMissed(bookId, expectedVersion);
+            return Optional.empty();
         }
 
-        BookEntity bookEntity = optionalBook.get();
+        BookDto before = bookMapper.mapTo(previous.get());
+        BookDto after = new BookDto(
+                bookId,
+                replace || changes.getTitle() != null ? changes.getTitle() : before.getTitle(),
+                replace || changes.getAuthor() != null ? changes.getAuthor() : before.getAuthor(),
+                replace || changes.getDescription() != null ? changes.getDescription() : before.getDescription(),
+                replace || changes.getIsbn() != null ? changes.getIsbn() : before.getIsbn(),
+                before.getVersion() + 1);
+        catalogVersion.bump();
 
-        bookEntity.setBookId(bookId);
-        bookEntity.setTitle(bookDto.getTitle());
-        bookEntity.setAuthor(bookDto.getAuthor());
-        bookEntity.setDescription(bookDto.getDescription());
-        bookEntity.setIsbn(bookDto.getIsbn());
+        eventPublisher.publishEvent(BookChangedEvent.updated(before, after));
 
-        bookRepository.save(bookEntity);
+        return Optional.of(after);
     }
 
     @Override
     @Transactional
-    public void delete(BookDto bookDto) {
-        BookEntity bookEntity = bookMapper.mapFrom(bookDto);
+    public boolean delete(long bookId, Long expectedVersion) {
+        Optional<BookEntity> previous = bookRepository.deleteReturningPrevious(bookId, expectedVersion);
+
+        if (previous.isEmpty()) {
+            checkMissed(bookId, expectedVersion);
+            return false;
+        }
+
+        catalogVersion.bump();
+
+        eventPublisher.publishEvent(BookChangedEvent.deleted(bookMapper.mapTo(previous.get())));
+
+        return true;
+    }
+
+    // A conditional write that matched no row: either the book is gone or it is at
+    // another version. Only this path costs a second query.
+    private void checkMissed(long bookId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return;
+        }
+
+        Optional<Long> version = bookRepository.findVersionById(bookId);
+
+        if (version.isPresent()) {
+            throw new OptimisticLockingFailureException("Book " + bookId + " is at version "
+                    + version.get() + ", not " + expectedVersion);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BookBatchResult> saveAll(List<BookDto> bookDtos) {
+        List<BookEntity> entities = new ArrayList<>(bookDtos.size());
+        for (BookDto bookDto : bookDtos) {
+            BookEntity bookEntity = bookMapper.mapFrom(bookDto);
+            // bulk create always inserts; ids are assigned from the sequence
+            bookEntity.setBookId(null);
+            bookEntity.setVersion(null);
+            entities.add(bookEntity);
+        }
+
+        // the inserts are sent as JDBC batches when the transaction flushes
+        List<BookEntity> saved = bookRepository.saveAll(entities);
+        catalogVersion.bump();
+
+        List<BookBatchResult> results = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            BookEntity bookEntity = saved.get(i);
+            bookDtos.get(i).setBookId(bookEntity.getBookId());
+
+            eventPublisher.publishEvent(BookChangedEvent.created(bookMapper.mapTo(bookEntity)));
+            results.add(BookBatchResult.of(i, bookEntity.getBookId(), BookBatchResult.Status.CREATED));
+        }
+
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BookBatchResult> updateAll(List<BookDto> bookDtos) {
+        List<Long> bookIds = bookDtos.stream().map(BookDto::getBookId).toList();
+
+        Map<Long, BookEntity> existing = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(BookEntity::getBookId, Function.identity()));
+
+        List<BookBatchResult> results = new ArrayList<>(bookDtos.size());
+        for (int i = 0; i < bookDtos.size(); i++) {
+            BookDto bookDto = bookDtos.get(i);
+            BookEntity bookEntity = existing.get(bookDto.getBookId());
+
+            if (bookEntity == null) {
+                results.add(BookBatchResult.of(i, bookDto.getBookId(), BookBatchResult.Status.NOT_FOUND));
+                continue;
+            }
+
+            BookDto before = bookMapper.mapTo(bookEntity);
+
+            // managed entities: the updates are batched by dirty checking at flush
+            bookEntity.setTitle(bookDto.getTitle());
+            bookEntity.setAuthor(bookDto.getAuthor());
+            bookEntity.setDescription(bookDto.getDescription());
+            bookEntity.setIsbn(bookDto.getIsbn());
+
+            eventPublisher.publishEvent(BookChangedEvent.updated(before, bookMapper.mapTo(bookEntity)));
+            results.add(BookBatchResult.of(i, bookEntity.getBookId(), BookBatchResult.Status.UPDATED));
+        }
+
+        if (!existing.isEmpty()) {
+            catalogVersion.bump();
+        }
+
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BookBatchResult> deleteAll(List<Long> bookIds) {
+        List<BookEntity> existing = bookRepository.findAllById(bookIds);
+
+        // a single DELETE ... WHERE book_id IN (...) statement
+        bookRepository.deleteAllInBatch(existing);
+        if (!existing.isEmpty()) {
+            catalogVersion.bump();
+        }
+
+        Map<Long, BookDto> deleted = existing.stream()
+                .map(bookMapper::mapTo)
+                .collect(Collectors.toMap(BookDto::getBookId, Function.identity()));
+
+        deleted.values().forEach(book -> eventPublisher.publishEvent(BookChangedEvent.deleted(book)));
+
+        List<BookBatchResult> results = new ArrayList<>(bookIds.size());
+        for (int i = 0; i < bookIds.size(); i++) {
+            Long bookId = bookIds.get(i);
+            results.add(BookBatchResult.of(i, bookId, deleted.containsKey(bookId)
+                    ? BookBatchResult.Status.DELETED
+                    : BookBatchResult.Status.NOT_FOUND));
+        }
+
+        return results;
+    }
+
+    private static BookProjection project(Tuple row, Set<BookField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (BookField field : fields) {
+            values.put(field.property(), row.get(field.property()));
+        }
 
-        bookRepository.delete(bookEntity);
+        return new BookProjection(row.get("version", Long.class), values);
     }
 }
@@ -0,0 +1,20 @@
+package dev.chiedo.bookapi.service;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+
+/**
+ * Immutable copy of a book held by caches. Callers always get a fresh
+ * {@link BookDto}, so nothing they do to it can change what is cached.
+ */
+record BookSnapshot(Long bookId, String title, String author, String description, String isbn,
+                    Long version) {
+
+    static BookSnapshot of(BookDto book) {
+        return new BookSnapshot(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                book.getIsbn(), book.getVersion());
+    }
+
+    BookDto toDto() {
+        return new BookDto(bookId, title, author, description, isbn, version);
+    }
+}
@@ -0,0 +1,165 @@
+package dev.chiedo.bookapi.service;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookBatchResult;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.projection.BookProjection;
+import dev.chiedo.bookapi.projection.BookProjectionPage;
+import dev.chiedo.bookapi.snapshot.CatalogSnapshots;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through cache in front of {@link BookServiceImpl} for lookups by id and by
+ * title. Writes go straight to the delegate; the affected entries are evicted once
+ * the writing transaction has committed.
+ * <p>
+ * Pages of the full book list are served from {@link CatalogSnapshots} whenever it
+ * has caught up with the catalog.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "books.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingBookService implements BookService {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String BOOKS_BY_TITLE_CACHE = "booksByTitle";
+
+    private final BookService delegate;
+    private final Cache books;
+    private final Cache booksByTitle;
+    private final CatalogSnapshots catalogSnapshots;
+
+    // constructor injection
+    public CachingBookService(@Qualifier("bookServiceImpl") BookService delegate,
+                              CacheManager cacheManager,
+                              CatalogSnapshots catalogSnapshots) {
+        this.delegate = delegate;
+        this.catalogSnapshots = catalogSnapshots;
+        this.books = Objects.requireNonNull(cacheManager.getCache(BOOKS_CACHE));
+        this.booksByTitle = Objects.requireNonNull(cacheManager.getCache(BOOKS_BY_TITLE_CACHE));
+    }
+
+    @Override
+    public List<BookDto> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public BookPage findPage(BookSort sort, BookCursor after, int limit) {
+        return catalogSnapshots.page(sort, after, limit, delegate.catalogVersion())
+                .orElseGet(() -> delegate.findPage(sort, after, limit));
+    }
+
+    // projections are read from the database each time; the full book is what gets cached
+    @Override
+    public BookProjectionPage findPage(BookSort sort, BookCursor after, int limit, Set<BookField> fields) {
+        return delegate.findPage(sort, after, limit, fields);
+    }
+
+    @Override
+    public Optional<BookProjection> findById(long bookId, Set<BookField> fields) {
+        return delegate.findById(bookId, fields);
+    }
+
+    @Override
+    public Optional<BookDto> findById(long bookId) {
+        // loading is atomic per key, so an eviction racing with a load removes its result
+        BookSnapshot book = books.get(bookId, () -> delegate.findById(bookId).map(BookSnapshot::of).orElse(null));
+
+        return Optional.ofNullable(book).map(BookSnapshot::toDto);
+    }
+
+    @Override
+    public Optional<Long> findVersion(long bookId) {
+        // loads the whole book on a miss, so the GET that usually follows is a hit
+        return findById(bookId).map(BookDto::getVersion);
+    }
+
+    @Override
+    public long catalogVersion() {
+        return delegate.catalogVersion();
+    }
+
+    @Override
+    public BookDto findByTitle(String title) {
+        BookSnapshot book = booksByTitle.get(title, () -> {
+            BookDto found = delegate.findByTitle(title);
+            return found == null ? null : BookSnapshot.of(found);
+        });
+
+        return book == null ? null : book.toDto();
+    }
+
+    @Override
+    public Optional<BookDto> findByIsbn(String isbn) {
+        return delegate.findByIsbn(isbn);
+    }
+
+    @Override
+    public void save(BookDto bookDto) {
+        delegate.save(bookDto);
+    }
+
+    @Override
+    public boolean update(long bookId, BookDto bookDto) {
+        return delegate.update(bookId, bookDto);
+    }
+
+    @Override
+    public Optional<BookDto> patch(long bookId, BookPatchDto patch, Long expectedVersion) {
+        return delegate.patch(bookId, patch, expectedVersion);
+    }
+
+    @Override
+    public boolean delete(long bookId, Long expectedVersion) {
+        return delegate.delete(bookId, expectedVersion);
+    }
+
+    @Override
+    public List<BookBatchResult> saveAll(List<BookDto> bookDtos) {
+        return delegate.saveAll(bookDtos);
+    }
+
+    @Override
+    public List<BookBatchResult> updateAll(List<BookDto> bookDtos) {
+        return delegate.updateAll(bookDtos);
+    }
+
+    @Override
+    public List<BookBatchResult> deleteAll(List<Long> bookIds) {
+        return delegate.deleteAll(bookIds);
+    }
+
+    // ahead of the caches built from what findById returns
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evict(BookChangedEvent event) {
+        books.evict(event.bookId());
+
+        // misses are cached too, so a new title has to be evicted as well as an old one
+        if (event.before() != null) {
+            booksByTitle.evict(event.before().getTitle());
+        }
+        if (event.after() != null) {
+            booksByTitle.evict(event.after().getTitle());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package dev.chiedo.bookapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Version of the book collection as a whole, kept in the single-row
+ * {@code book_catalog_version} table. Every transaction that writes books bumps
+ * it once, just before committing, so the row lock is held as briefly as possible.
+ * <p>
+ * {@link #current()} answers from memory: commits made by this instance are
+ * seen immediately, those of other instances after at most the refresh interval.
+ */
+@Component
+public class CatalogVersion {
+
+    // increments and reads back the new value in one round trip
+    private static final String INCREMENT = "SELECT version FROM FINAL TABLE "
+            + "(UPDATE book_catalog_version SET version = version + 1 WHERE id = 1)";
+    private static final String SELECT = "SELECT version FROM book_catalog_version WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshIntervalNanos;
+
+    private final AtomicLong known = new AtomicLong();
+    private final AtomicLong refreshedAt;
+
+    // constructor injection
+    public CatalogVersion(JdbcTemplate jdbcTemplate,
+                          @Value("${books.catalog-version.refresh-interval:1s}") Duration refreshInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.refreshedAt = new AtomicLong(System.nanoTime() - refreshIntervalNanos - 1);
+    }
+
+    public long current() {
+        long now = System.nanoTime();
+        long last = refreshedAt.get();
+
+        // one caller refreshes, the others keep answering from memory meanwhile
+        if (now - last > refreshIntervalNanos && refreshedAt.compareAndSet(last, now)) {
+            Long stored = jdbcTemplate.queryForObject(SELECT, Long.class);
+            known.accumulateAndGet(stored, Math::max);
+        }
+
+        return known.get();
+    }
+
+    /**
+     * Marks the current transaction as changing the catalog. Calling it more than
+     * once in a transaction still bumps the version only once.
+     */
+    public void bump() {
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private long bumped;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                bumped = jdbcTemplate.queryForObject(INCREMENT, Long.class);
+            }
+
+            @Override
+            public void afterCommit() {
+                known.accumulateAndGet(bumped, Math::max);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(CatalogVersion.this);
+            }
+        });
+    }
+
+    /**
+     * The state {@code owner} keeps for the current transaction, created on first use
+     * together with the synchronization that writes it. Bumps the version first, so
+     * that synchronization runs after the catalog row is locked, and writers that
+     * touch the same rows never do so at once. The state is unbound when the
+     * transaction completes.
+     */
+    public <T> T pendingUntilCommit(Object owner, Supplier<T> state,
+                                    Function<T, TransactionSynchronization> synchronization) {
+        @SuppressWarnings("unchecked")
+        T pending = (T) TransactionSynchronizationManager.getResource(owner);
+
+        if (pending == null) {
+            bump();
+
+            pending = state.get();
+            TransactionSynchronizationManager.bindResource(owner, pending);
+            TransactionSynchronizationManager.registerSynchronization(
+                    new UnbindingSynchronization(owner, synchronization.apply(pending)));
+        }
+
+        return pending;
+    }
+
+    private record UnbindingSynchronization(Object owner, TransactionSynchronization delegate)
+            implements TransactionSynchronization {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            delegate.beforeCommit(readOnly);
+        }
+
+        @Override
+        public void afterCommit() {
+            delegate.afterCommit();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(owner);
+            delegate.afterCompletion(status);
+        }
+    }
+}
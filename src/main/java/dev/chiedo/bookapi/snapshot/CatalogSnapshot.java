@@ -0,0 +1,359 @@
+package dev.chiedo.bookapi.snapshot;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Every book of the catalog as of one catalog version, one array per column and
+ * one row per book in ascending id order. Authors are stored once each and
+ * referenced by index. Never modified once built: a change produces a new
+ * snapshot, so readers need no locks.
+ */
+public final class CatalogSnapshot {
+
+    // object header and array length, with compressed class pointers
+    private static final int ARRAY_HEADER_BYTES = 16;
+    // object header, hash, coder and a compressed reference to the value array
+    private static final int STRING_BYTES = 24;
+    // assumes compressed ordinary object pointers
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final CatalogSnapshot EMPTY = new Builder(0).build(0, 0);
+
+    private final long catalogVersion;
+    private final long changeSeq;
+
+    private final long[] bookIds;
+    private final String[] titles;
+    private final int[] authorIndexes;
+    private final String[] authors;
+    private final String[] descriptions;
+    private final String[] isbns;
+    private final long[] versions;
+
+    // row numbers in (title, bookId) order
+    private final int[] titleOrder;
+
+    // computed on first use
+    private volatile long footprintBytes = -1;
+
+    private CatalogSnapshot(long catalogVersion, long changeSeq, long[] bookIds, String[] titles,
+                            int[] authorIndexes, String[] authors, String[] descriptions, String[] isbns,
+                            long[] versions, int[] titleOrder) {
+        this.catalogVersion = catalogVersion;
+        this.changeSeq = changeSeq;
+        this.bookIds = bookIds;
+        this.titles = titles;
+        this.authorIndexes = authorIndexes;
+        this.authors = authors;
+        this.descriptions = descriptions;
+        this.isbns = isbns;
+        this.versions = versions;
+        this.titleOrder = titleOrder;
+    }
+
+    public static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Starts a snapshot of books added in ascending id order.
+     */
+    public static Builder builder(int expectedBooks) {
+        return new Builder(expectedBooks);
+    }
+
+    /**
+     * The version of the catalog this snapshot is at least as new as.
+     */
+    public long catalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * The last change from the change log applied to this snapshot.
+     */
+    public long changeSeq() {
+        return changeSeq;
+    }
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public int authorCount() {
+        return authors.length;
+    }
+
+    /**
+     * The same books, as of a newer catalog version reached without changing any.
+     */
+    public CatalogSnapshot at(long catalogVersion, long changeSeq) {
+        return new CatalogSnapshot(catalogVersion, changeSeq, bookIds, titles, authorIndexes, authors,
+                descriptions, isbns, versions, titleOrder);
+    }
+
+    /**
+     * A new snapshot with the given books replaced, added or, where mapped to
+     * {@code null}, removed. This snapshot is left as it was.
+     */
+    public CatalogSnapshot apply(SortedMap<Long, BookDto> changes, long catalogVersion, long changeSeq) {
+        Builder builder = new Builder(size() + changes.size());
+        Iterator<Map.Entry<Long, BookDto>> changed = changes.entrySet().iterator();
+        Map.Entry<Long, BookDto> change = changed.hasNext() ? changed.next() : null;
+
+        // the new row of each kept row, or -1, and the new rows of changed books, in id order
+        int[] keptRows = new int[bookIds.length];
+        int[] changedRows = new int[changes.size()];
+        int changedCount = 0;
+
+        // both are in id order, so one merging pass rebuilds the columns
+        for (int row = 0; row < bookIds.length; row++) {
+            while (change != null && change.getKey() < bookIds[row]) {
+                changedCount = addChanged(builder, change.getValue(), changedRows, changedCount);
+                change = changed.hasNext() ? changed.next() : null;
+            }
+            if (change != null && change.getKey() == bookIds[row]) {
+                keptRows[row] = -1;
+                changedCount = addChanged(builder, change.getValue(), changedRows, changedCount);
+                change = changed.hasNext() ? changed.next() : null;
+            } else {
+                keptRows[row] = builder.size;
+                builder.add(bookIds[row], titles[row], authors[authorIndexes[row]], descriptions[row], isbns[row],
+                        versions[row]);
+            }
+        }
+        while (change != null) {
+            changedCount = addChanged(builder, change.getValue(), changedRows, changedCount);
+            change = changed.hasNext() ? changed.next() : null;
+        }
+
+        return builder.build(catalogVersion, changeSeq, titleOrder(builder, keptRows,
+                builder.byTitle(Arrays.copyOf(changedRows, changedCount))));
+    }
+
+    private static int addChanged(Builder builder, BookDto book, int[] changedRows, int changedCount) {
+        if (book == null) {
+            return changedCount;
+        }
+        changedRows[changedCount] = builder.size;
+        builder.add(book);
+        return changedCount + 1;
+    }
+
+    // The kept rows stay in the order they had, so only the changed ones are sorted,
+    // and merged in
+    private int[] titleOrder(Builder builder, int[] keptRows, int[] changedByTitle) {
+        int[] order = new int[builder.size];
+        int kept = 0;
+        int changed = 0;
+
+        for (int position = 0; position < order.length; position++) {
+            while (kept < titleOrder.length && keptRows[titleOrder[kept]] < 0) {
+                kept++;
+            }
+            int keptRow = kept < titleOrder.length ? keptRows[titleOrder[kept]] : -1;
+
+            if (changed == changedByTitle.length
+                    || keptRow >= 0 && builder.compareByTitle(keptRow, changedByTitle[changed]) < 0) {
+                order[position] = keptRow;
+                kept++;
+            } else {
+                order[position] = changedByTitle[changed++];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Up to {@code limit} books after {@code after}, in the same order and with the
+     * same cursor as {@code BookService.findPage}.
+     */
+    public BookPage page(BookSort sort, BookCursor after, int limit) {
+        int from = sort == BookSort.TITLE ? titlePosition(after) : idPosition(after);
+        int to = Math.min(from + limit, bookIds.length);
+
+        List<BookDto> books = new ArrayList<>(Math.max(to - from, 0));
+        for (int position = from; position < to; position++) {
+            books.add(book(sort == BookSort.TITLE ? titleOrder[position] : position));
+        }
+
+        BookCursor next = to < bookIds.length ? BookCursor.after(sort, books.get(books.size() - 1)) : null;
+
+        return new BookPage(books, next);
+    }
+
+    /**
+     * Estimated heap retained by this snapshot, assuming compressed object pointers
+     * and compact strings.
+     */
+    public long footprintBytes() {
+        if (footprintBytes < 0) {
+            footprintBytes = measureFootprint();
+        }
+        return footprintBytes;
+    }
+
+    private long measureFootprint() {
+        long bytes = array(bookIds.length, Long.BYTES) + array(authorIndexes.length, Integer.BYTES)
+                + array(versions.length, Long.BYTES) + array(titleOrder.length, Integer.BYTES)
+                + 4 * array(bookIds.length, REFERENCE_BYTES) + array(authors.length, REFERENCE_BYTES);
+
+        for (int row = 0; row < bookIds.length; row++) {
+            bytes += string(titles[row]) + string(descriptions[row]) + string(isbns[row]);
+        }
+        for (String author : authors) {
+            bytes += string(author);
+        }
+        return bytes;
+    }
+
+    private BookDto book(int row) {
+        return new BookDto(bookIds[row], titles[row], authors[authorIndexes[row]], descriptions[row], isbns[row],
+                versions[row]);
+    }
+
+    // the first row with an id greater than the cursor's
+    private int idPosition(BookCursor after) {
+        if (after == null) {
+            return 0;
+        }
+        int found = Arrays.binarySearch(bookIds, after.bookId());
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    // the first position with (title, bookId) greater than the cursor's
+    private int titlePosition(BookCursor after) {
+        if (after == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = titleOrder.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int row = titleOrder[middle];
+            int compared = titles[row].compareTo(after.title());
+            if (compared < 0 || compared == 0 && bookIds[row] <= after.bookId()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementBytes);
+    }
+
+    private static long string(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return STRING_BYTES + array(value.length(), latin1 ? 1 : 2);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Integer> authorIndexes = new HashMap<>();
+        private final List<String> authors = new ArrayList<>();
+
+        private long[] bookIds;
+        private String[] titles;
+        private int[] authorColumn;
+        private String[] descriptions;
+        private String[] isbns;
+        private long[] versions;
+        private int size;
+
+        private Builder(int expectedBooks) {
+            int capacity = Math.max(expectedBooks, 16);
+            bookIds = new long[capacity];
+            titles = new String[capacity];
+            authorColumn = new int[capacity];
+            descriptions = new String[capacity];
+            isbns = new String[capacity];
+            versions = new long[capacity];
+        }
+
+        // null stands for a removed book and is skipped
+        public Builder add(BookDto book) {
+            if (book != null) {
+                add(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription(), book.getIsbn(),
+                        book.getVersion() == null ? 0 : book.getVersion());
+            }
+            return this;
+        }
+
+        public Builder add(long bookId, String title, String author, String description, String isbn, long version) {
+            if (size > 0 && bookId <= bookIds[size - 1]) {
+                throw new IllegalArgumentException("Book " + bookId + " added after book " + bookIds[size - 1]);
+            }
+            if (size == bookIds.length) {
+                grow();
+            }
+            bookIds[size] = bookId;
+            titles[size] = title;
+            authorColumn[size] = authorIndexes.computeIfAbsent(author, added -> {
+                authors.add(added);
+                return authors.size() - 1;
+            });
+            descriptions[size] = description;
+            isbns[size] = isbn;
+            versions[size] = version;
+            size++;
+            return this;
+        }
+
+        public CatalogSnapshot build(long catalogVersion, long changeSeq) {
+            int[] rows = new int[size];
+            Arrays.setAll(rows, row -> row);
+
+            return build(catalogVersion, changeSeq, byTitle(rows));
+        }
+
+        private CatalogSnapshot build(long catalogVersion, long changeSeq, int[] titleOrder) {
+            return new CatalogSnapshot(catalogVersion, changeSeq, Arrays.copyOf(bookIds, size),
+                    Arrays.copyOf(titles, size), Arrays.copyOf(authorColumn, size), authors.toArray(String[]::new),
+                    Arrays.copyOf(descriptions, size), Arrays.copyOf(isbns, size), Arrays.copyOf(versions, size),
+                    titleOrder);
+        }
+
+        // the rows, given in id order, in (title, bookId) order
+        private int[] byTitle(int[] rows) {
+            // ids are ascending, so a stable sort by title alone leaves ties in id order
+            Integer[] byTitle = new Integer[rows.length];
+            Arrays.setAll(byTitle, index -> rows[index]);
+            Arrays.sort(byTitle, (a, b) -> titles[a].compareTo(titles[b]));
+
+            return Arrays.stream(byTitle).mapToInt(Integer::intValue).toArray();
+        }
+
+        private int compareByTitle(int row, int other) {
+            int compared = titles[row].compareTo(titles[other]);
+            return compared != 0 ? compared : Long.compare(bookIds[row], bookIds[other]);
+        }
+
+        private void grow() {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            authorColumn = Arrays.copyOf(authorColumn, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            isbns = Arrays.copyOf(isbns, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package dev.chiedo.bookapi.snapshot;
+
+import dev.chiedo.bookapi.changes.BookChangeLog;
+import dev.chiedo.bookapi.changes.ChangesCompactedException;
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookChangesDto;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link CatalogSnapshot} in step with the database and serves list
+ * reads from it. A refresh applies the change log since the last one to a copy
+ * and swaps it in, so readers never wait on a refresh and never see one half done.
+ * <p>
+ * Commits made by this instance trigger a refresh straight away, those of other
+ * instances after at most the refresh interval. Writes committed while a refresh
+ * runs are picked up together by the next one.
+ */
+@Component
+public class CatalogSnapshots {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    // both in one statement, so they are read as of the same commit
+    private static final String SELECT_POSITION = "SELECT (SELECT version FROM book_catalog_version WHERE id = 1), "
+            + "(SELECT COALESCE(MAX(seq), 0) FROM book_changes)";
+
+    private final BookRepository bookRepository;
+    private final BookChangeLog changeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TaskExecutor taskExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int changeBatchSize;
+
+    // null until the first load has finished
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    // not synchronized: a virtual thread waiting on JDBC inside it would pin its carrier
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // constructor injection
+    public CatalogSnapshots(BookRepository bookRepository,
+                            BookChangeLog changeLog,
+                            JdbcTemplate jdbcTemplate,
+                            EntityManager entityManager,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${books.snapshot.enabled:false}") boolean enabled,
+                            @Value("${books.snapshot.change-batch-size:1000}") int changeBatchSize) {
+        this.bookRepository = bookRepository;
+        this.changeLog = changeLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.taskExecutor = taskExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.changeBatchSize = changeBatchSize;
+
+        Gauge.builder("books.snapshot.books", current, snapshot -> snapshot.get() == null ? 0 : snapshot.get().size())
+                .description("Books in the in-memory catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("books.snapshot.bytes", current,
+                        snapshot -> snapshot.get() == null ? 0 : snapshot.get().footprintBytes())
+                .description("Estimated heap retained by the in-memory catalog snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A page read from the snapshot, if it is at least as new as {@code catalogVersion}.
+     * Otherwise the caller has to read the database.
+     */
+    public Optional<BookPage> page(BookSort sort, BookCursor after, int limit, long catalogVersion) {
+        CatalogSnapshot snapshot = current.get();
+
+        if (snapshot == null || snapshot.catalogVersion() < catalogVersion) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.page(sort, after, limit));
+    }
+
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            requestRefresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (enabled) {
+            requestRefresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${books.snapshot.refresh-interval:1s}")
+    public void poll() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Brings the snapshot up to the latest commit: reloads every book the first
+     * time or when the changes it needs have been compacted away, and otherwise
+     * applies the changes made since the last refresh.
+     */
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            CatalogSnapshot snapshot = current.get();
+            long[] position = position();
+
+            if (snapshot != null && snapshot.catalogVersion() >= position[0]) {
+                return;
+            }
+
+            try {
+                current.set(snapshot == null ? reload() : advance(snapshot, position[0], position[1]));
+            } catch (ChangesCompactedException e) {
+                LOGGER.info("Reloading the catalog snapshot: {}", e.getMessage());
+                current.set(reload());
+            } catch (RuntimeException e) {
+                // the current snapshot keeps serving as long as it is new enough; the next refresh retries
+                LOGGER.warn("Failed to refresh the catalog snapshot", e);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // only one refresh is queued at a time; writes committed meanwhile are covered by it
+    private void requestRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                refreshQueued.set(false);
+                refresh();
+            });
+        }
+    }
+
+    private CatalogSnapshot advance(CatalogSnapshot snapshot, long catalogVersion, long latestSeq) {
+        SortedMap<Long, BookDto> changed = new TreeMap<>();
+        long seq = snapshot.changeSeq();
+
+        // only the newest state of each book matters
+        while (seq < latestSeq) {
+            List<BookChangesDto.Change> changes = changeLog.readAfter(seq, changeBatchSize);
+            if (changes.isEmpty()) {
+                break;
+            }
+            for (BookChangesDto.Change change : changes) {
+                changed.put(change.bookId(), change.book());
+            }
+            seq = changes.get(changes.size() - 1).seq();
+        }
+
+        return changed.isEmpty()
+                ? snapshot.at(catalogVersion, seq)
+                : snapshot.apply(changed, catalogVersion, seq);
+    }
+
+    private CatalogSnapshot reload() {
+        long start = System.nanoTime();
+
+        CatalogSnapshot snapshot = readOnlyTransaction.execute(status -> {
+            // read first: books committed after it are applied again by the next refresh, which is harmless
+            long[] position = position();
+            CatalogSnapshot.Builder builder = CatalogSnapshot.builder((int) bookRepository.count());
+
+            try (Stream<BookEntity> books = bookRepository.streamAll()) {
+                books.forEach(book -> {
+                    builder.add(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                            book.getIsbn(), book.getVersion() == null ? 0 : book.getVersion());
+                    entityManager.detach(book);
+                });
+            }
+            return builder.build(position[0], position[1]);
+        });
+
+        LOGGER.info("Loaded {} books by {} authors into the catalog snapshot in {} ms, about {} bytes",
+                snapshot.size(), snapshot.authorCount(), (System.nanoTime() - start) / 1_000_000,
+                snapshot.footprintBytes());
+        return snapshot;
+    }
+
+    // the catalog version and the newest change, as of the same commit
+    private long[] position() {
+        return jdbcTemplate.queryForObject(SELECT_POSITION, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+}
@@ -0,0 +1,88 @@
+package dev.chiedo.bookapi.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where startup time went once the application is ready: the phases and the beans
+ * that took longest, by self time (a step's duration less that of the steps it
+ * contains, so a bean is not charged for the beans it pulled in). The full timeline is
+ * at {@code /actuator/startup}.
+ */
+@Component
+public class StartupReport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+    private final int top;
+
+    // constructor injection
+    public StartupReport(@Value("${books.startup.report.top:10}") int top) {
+        this.top = top;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+
+        List<StartupTimeline.TimelineEvent> steps = startup.getBufferedTimeline().getEvents();
+
+        Map<Long, Duration> children = new HashMap<>();
+        for (StartupTimeline.TimelineEvent step : steps) {
+            Long parentId = step.getStartupStep().getParentId();
+            if (parentId != null) {
+                children.merge(parentId, step.getDuration(), Duration::plus);
+            }
+        }
+
+        Map<String, Duration> phases = new HashMap<>();
+        Map<String, Duration> beans = new HashMap<>();
+        for (StartupTimeline.TimelineEvent step : steps) {
+            String name = step.getStartupStep().getName();
+            Duration self = step.getDuration().minus(children.getOrDefault(step.getStartupStep().getId(), Duration.ZERO));
+
+            phases.merge(name, self, Duration::plus);
+            if (BEAN_INSTANTIATION.equals(name)) {
+                beans.merge(tag(step.getStartupStep(), "beanName"), self, Duration::plus);
+            }
+        }
+
+        LOGGER.info("Ready in {} ms ({} startup steps recorded); slowest phases: {}",
+                event.getTimeTaken().toMillis(), steps.size(), slowest(phases));
+        LOGGER.info("Slowest beans: {}", slowest(beans));
+    }
+
+    private String slowest(Map<String, Duration> selfTimes) {
+        return selfTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .limit(top)
+                .map(entry -> entry.getKey() + "=" + entry.getValue().toMillis() + "ms")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
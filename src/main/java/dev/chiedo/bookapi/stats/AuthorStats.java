@@ -0,0 +1,188 @@
+package dev.chiedo.bookapi.stats;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.AuthorStatsCheckDto;
+import dev.chiedo.bookapi.model.dto.BookStatsDto;
+import dev.chiedo.bookapi.service.CatalogVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The {@code author_stats} table: the number of books of each author, adjusted in
+ * the transaction that adds, changes or removes books, so the counts are exact as of
+ * every commit and reading them never touches {@code books}.
+ * <p>
+ * The adjustments are applied just before commit, after {@link CatalogVersion} has
+ * locked the catalog row, so concurrent writers never update the same authors at once.
+ */
+@Component
+public class AuthorStats {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorStats.class);
+
+    private static final String ADJUST = "MERGE INTO author_stats s USING (VALUES (CAST(? AS VARCHAR(50)), "
+            + "CAST(? AS BIGINT))) d (author, delta) ON s.author = d.author "
+            + "WHEN MATCHED THEN UPDATE SET books = s.books + d.delta "
+            + "WHEN NOT MATCHED THEN INSERT (author, books) VALUES (d.author, d.delta)";
+    private static final String DELETE_EMPTY = "DELETE FROM author_stats WHERE author = ? AND books = 0";
+    private static final String SELECT_TOTALS = "SELECT COALESCE(SUM(books), 0), COUNT(*) FROM author_stats";
+    private static final String SELECT_TOP = "SELECT author, books FROM author_stats "
+            + "ORDER BY books DESC, author FETCH FIRST ? ROWS ONLY";
+    private static final String SELECT_PAGE = "SELECT author, books FROM author_stats WHERE author > ? "
+            + "ORDER BY author FETCH FIRST ? ROWS ONLY";
+    private static final String SELECT_ALL = "SELECT author, books FROM author_stats";
+    private static final String COUNT_BOOKS = "SELECT author, COUNT(*) AS books FROM books GROUP BY author";
+    private static final String LOCK_CATALOG = "SELECT version FROM book_catalog_version WHERE id = 1 FOR UPDATE";
+    private static final String DELETE_ALL = "DELETE FROM author_stats";
+    private static final String INSERT_COUNTS = "INSERT INTO author_stats (author, books) " + COUNT_BOOKS;
+
+    private static final RowMapper<BookStatsDto.AuthorCount> AUTHOR_COUNT_ROW_MAPPER =
+            (rs, rowNum) -> new BookStatsDto.AuthorCount(rs.getString("author"), rs.getLong("books"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersion catalogVersion;
+
+    // constructor injection
+    public AuthorStats(JdbcTemplate jdbcTemplate, CatalogVersion catalogVersion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogVersion = catalogVersion;
+    }
+
+    // runs inside the writing transaction; the adjustments are summed per author until it commits
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        String before = event.before() == null ? null : event.before().getAuthor();
+        String after = event.after() == null ? null : event.after().getAuthor();
+
+        if (Objects.equals(before, after)) {
+            return;
+        }
+
+        SortedMap<String, Long> pending =
+                catalogVersion.pendingUntilCommit(this, TreeMap::new, PendingAdjustments::new);
+
+        if (before != null) {
+            pending.merge(before, -1L, Long::sum);
+        }
+        if (after != null) {
+            pending.merge(after, 1L, Long::sum);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public BookStatsDto stats(int topAuthors) {
+        long[] totals = jdbcTemplate.queryForObject(SELECT_TOTALS,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+
+        return new BookStatsDto(totals[0], totals[1],
+                jdbcTemplate.query(SELECT_TOP, AUTHOR_COUNT_ROW_MAPPER, topAuthors));
+    }
+
+    /**
+     * Up to {@code limit} authors after {@code after} in alphabetical order, with their
+     * number of books.
+     */
+    @Transactional(readOnly = true)
+    public List<BookStatsDto.AuthorCount> authors(String after, int limit) {
+        return jdbcTemplate.query(SELECT_PAGE, AUTHOR_COUNT_ROW_MAPPER, after == null ? "" : after, limit);
+    }
+
+    /**
+     * Recounts the books of every author and compares the counts with the maintained
+     * ones. Holds the catalog lock meanwhile, so both are read as of the same commit.
+     */
+    @Transactional
+    public AuthorStatsCheckDto verify() {
+        jdbcTemplate.queryForObject(LOCK_CATALOG, Long.class);
+
+        Map<String, Long> counted = counts(COUNT_BOOKS);
+        List<AuthorStatsCheckDto.Mismatch> mismatches = mismatches(counted, counts(SELECT_ALL));
+
+        return new AuthorStatsCheckDto(counted.size(), mismatches, false);
+    }
+
+    /**
+     * Replaces the maintained counts with a recount of {@code books}. Writers wait on
+     * the catalog lock until it is done.
+     */
+    @Transactional
+    public AuthorStatsCheckDto rebuild() {
+        AuthorStatsCheckDto check = verify();
+
+        jdbcTemplate.update(DELETE_ALL);
+        jdbcTemplate.update(INSERT_COUNTS);
+        LOGGER.info("Rebuilt the counts of {} authors, {} of which were off", check.authors(),
+                check.mismatches().size());
+
+        return new AuthorStatsCheckDto(check.authors(), check.mismatches(), true);
+    }
+
+    private Map<String, Long> counts(String query) {
+        Map<String, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(query, rs -> {
+            counts.put(rs.getString("author"), rs.getLong("books"));
+        });
+        return counts;
+    }
+
+    private static List<AuthorStatsCheckDto.Mismatch> mismatches(Map<String, Long> counted, Map<String, Long> stored) {
+        TreeSet<String> authors = new TreeSet<>(counted.keySet());
+        authors.addAll(stored.keySet());
+
+        List<AuthorStatsCheckDto.Mismatch> mismatches = new ArrayList<>();
+        for (String author : authors) {
+            long expected = counted.getOrDefault(author, 0L);
+            long actual = stored.getOrDefault(author, 0L);
+            if (expected != actual) {
+                mismatches.add(new AuthorStatsCheckDto.Mismatch(author, expected, actual));
+            }
+        }
+        return mismatches;
+    }
+
+    private final class PendingAdjustments implements TransactionSynchronization {
+
+        // an author whose books only moved within the transaction nets 0 and is skipped
+        private final SortedMap<String, Long> deltas;
+
+        private PendingAdjustments(SortedMap<String, Long> deltas) {
+            this.deltas = deltas;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            List<Object[]> adjustments = new ArrayList<>(deltas.size());
+            List<Object[]> decreased = new ArrayList<>();
+
+            deltas.forEach((author, delta) -> {
+                if (delta != 0) {
+                    adjustments.add(new Object[]{author, delta});
+                }
+                if (delta < 0) {
+                    decreased.add(new Object[]{author});
+                }
+            });
+
+            if (!adjustments.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADJUST, adjustments);
+            }
+            if (!decreased.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_EMPTY, decreased);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package dev.chiedo.bookapi.suggest;
+
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookSuggestionDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Suggests titles and authors for a prefix, weighted by their number of books.
+ * <p>
+ * Suggestions come from a {@link SuggestionIndex} plus the committed changes made
+ * since it was built, which are kept as per-entry adjustments and merged into each
+ * answer. Once enough of those have piled up, a new index is built from the
+ * database in the background and swapped in; readers take no locks and keep
+ * using the previous one meanwhile. Writes of other instances are picked up by
+ * the periodic rebuild.
+ * <p>
+ * While rebuilds fail, they are retried with a doubling delay, and the adjustments
+ * stop taking new entries at ten times the rebuild threshold; changes to entries
+ * left out show up once a rebuild succeeds.
+ */
+@Component
+public class BookSuggestions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSuggestions.class);
+
+    private static final String SELECT_TITLES = "SELECT title, COUNT(*) FROM books GROUP BY title";
+    private static final String SELECT_AUTHORS = "SELECT author, books FROM author_stats";
+
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int MAX_PENDING_FACTOR = 10;
+
+    private static final Comparator<BookSuggestionDto> MOST_BOOKS_FIRST =
+            Comparator.comparingLong(BookSuggestionDto::books).reversed()
+                    .thenComparing(suggestion -> SuggestionIndex.normalize(suggestion.text()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskExecutor taskExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxPendingChanges;
+    private final Duration rebuildInterval;
+
+    // not synchronized: a virtual thread waiting on JDBC inside it would pin its carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    // System.nanoTime() before which a change does not request a rebuild, after failed ones
+    private volatile long retryAt = System.nanoTime();
+    private int failedRebuilds;
+
+    private volatile State state = new State(SuggestionIndex.empty(), new ConcurrentHashMap<>());
+
+    // changes committed while a rebuild is reading the database, carried over to the index it builds
+    private Map<Key, Pending> changedDuringRebuild;
+
+    // constructor injection
+    public BookSuggestions(JdbcTemplate jdbcTemplate,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${books.suggest.max-pending-changes:1000}") int maxPendingChanges,
+                           @Value("${books.suggest.rebuild-interval:10m}") Duration rebuildInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskExecutor = taskExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPendingChanges = maxPendingChanges;
+        this.rebuildInterval = rebuildInterval;
+
+        Gauge.builder("books.suggest.entries", this, suggestions -> suggestions.state.index().size())
+                .description("Titles and authors in the suggestion index")
+                .register(meterRegistry);
+        Gauge.builder("books.suggest.bytes", this, suggestions -> suggestions.state.index().footprintBytes())
+                .description("Estimated heap retained by the suggestion index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("books.suggest.pending", this, suggestions -> suggestions.state.pending().size())
+                .description("Titles and authors changed since the suggestion index was built")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Up to {@code limit} titles and authors starting with {@code query}, ignoring
+     * case, diacritics and repeated whitespace; most books first.
+     */
+    public List<BookSuggestionDto> suggest(String query, int limit) {
+        String prefix = SuggestionIndex.normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        State current = state;
+        Map<Key, Pending> changed = new HashMap<>();
+        current.pending().forEach((key, pending) -> {
+            if (pending.delta() != 0 && key.key().startsWith(prefix)) {
+                changed.put(key, pending);
+            }
+        });
+
+        // each changed entry can push at most one entry of the index out of the top
+        List<BookSuggestionDto> top = current.index().top(prefix, limit + changed.size());
+        if (changed.isEmpty()) {
+            return top;
+        }
+
+        Map<Key, BookSuggestionDto> candidates = new LinkedHashMap<>();
+        for (BookSuggestionDto suggestion : top) {
+            candidates.put(new Key(SuggestionIndex.normalize(suggestion.text()), suggestion.type()), suggestion);
+        }
+        changed.forEach((key, pending) -> {
+            BookSuggestionDto indexed = candidates.get(key);
+            long books = indexed == null ? current.index().weight(key.key(), key.type()) : indexed.books();
+            String text = indexed == null ? pending.text() : indexed.text();
+            candidates.put(key, new BookSuggestionDto(text, key.type(), books + pending.delta()));
+        });
+
+        return candidates.values().stream()
+                .filter(suggestion -> suggestion.books() > 0)
+                .sorted(MOST_BOOKS_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        adjust(event, BookSuggestionDto.Type.TITLE, BookDto::getTitle);
+        adjust(event, BookSuggestionDto.Type.AUTHOR, BookDto::getAuthor);
+
+        if (state.pending().size() >= maxPendingChanges && System.nanoTime() - retryAt >= 0) {
+            requestRebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @Scheduled(initialDelayString = "${books.suggest.rebuild-interval:10m}",
+            fixedDelayString = "${books.suggest.rebuild-interval:10m}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+
+            synchronized (this) {
+                changedDuringRebuild = new ConcurrentHashMap<>();
+            }
+
+            SuggestionIndex index;
+            try {
+                index = readOnlyTransaction.execute(status -> {
+                    SuggestionIndex.Builder builder = SuggestionIndex.builder();
+                    jdbcTemplate.query(SELECT_TITLES, rs -> {
+                        builder.add(rs.getString(1), BookSuggestionDto.Type.TITLE, rs.getLong(2));
+                    });
+                    jdbcTemplate.query(SELECT_AUTHORS, rs -> {
+                        builder.add(rs.getString(1), BookSuggestionDto.Type.AUTHOR, rs.getLong(2));
+                    });
+                    return builder.build();
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+                backOff();
+                throw e;
+            }
+
+            // a change committed just as the reading started may be counted twice until the next rebuild
+            synchronized (this) {
+                state = new State(index, changedDuringRebuild);
+                changedDuringRebuild = null;
+            }
+            failedRebuilds = 0;
+            retryAt = System.nanoTime();
+
+            LOGGER.info("Indexed {} titles and authors for suggestions in {} ms, about {} bytes", index.size(),
+                    (System.nanoTime() - start) / 1_000_000, index.footprintBytes());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // called holding the rebuild lock; the delay doubles up to the rebuild interval
+    private void backOff() {
+        failedRebuilds++;
+        Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << Math.min(failedRebuilds - 1, 20));
+        if (delay.compareTo(rebuildInterval) > 0) {
+            delay = rebuildInterval;
+        }
+        retryAt = System.nanoTime() + delay.toNanos();
+        LOGGER.debug("Retrying the suggestion index rebuild in {} after {} failures", delay, failedRebuilds);
+    }
+
+    // only one rebuild is queued at a time; changes committed meanwhile are covered by it
+    private void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to rebuild the suggestion index", e);
+                }
+            });
+        }
+    }
+
+    private void adjust(BookChangedEvent event, BookSuggestionDto.Type type, Function<BookDto, String> field) {
+        String before = event.before() == null ? null : field.apply(event.before());
+        String after = event.after() == null ? null : field.apply(event.after());
+
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            record(new Key(SuggestionIndex.normalize(before), type), new Pending(before, -1));
+        }
+        if (after != null) {
+            record(new Key(SuggestionIndex.normalize(after), type), new Pending(after, 1));
+        }
+    }
+
+    private synchronized void record(Key key, Pending change) {
+        merge(state.pending(), key, change);
+        if (changedDuringRebuild != null) {
+            merge(changedDuringRebuild, key, change);
+        }
+    }
+
+    // bounded while rebuilds fail: entries already pending are still adjusted, new ones wait for the rebuild
+    private void merge(Map<Key, Pending> pending, Key key, Pending change) {
+        if (pending.size() < maxPendingChanges * MAX_PENDING_FACTOR || pending.containsKey(key)) {
+            pending.merge(key, change, Pending::plus);
+        }
+    }
+
+    private record State(SuggestionIndex index, Map<Key, Pending> pending) {
+    }
+
+    private record Key(String key, BookSuggestionDto.Type type) {
+    }
+
+    // shown with the text it was first changed with until the entry is in the index
+    private record Pending(String text, long delta) {
+
+        Pending plus(Pending later) {
+            return new Pending(text, delta + later.delta());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package dev.chiedo.bookapi.suggest;
+
+import dev.chiedo.bookapi.model.dto.BookSuggestionDto;
+import dev.chiedo.bookapi.search.TextAnalyzer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Titles and authors sorted by their normalized form, so the entries starting with
+ * a prefix are one contiguous range found by binary search. A tournament tree over
+ * the weights finds the heaviest entry of any range in logarithmic time, which
+ * makes the top k of a range cost O(k log n) however many entries it holds.
+ * <p>
+ * Keys and texts are UTF-8 bytes packed into one array each, so an entry costs a
+ * few dozen bytes rather than a handful of objects. Never modified once built.
+ */
+public final class SuggestionIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final BookSuggestionDto.Type[] TYPES = BookSuggestionDto.Type.values();
+
+    private static final SuggestionIndex EMPTY = new Builder().build();
+
+    private final byte[] keys;
+    private final int[] keyOffsets;
+    private final byte[] texts;
+    private final int[] textOffsets;
+    private final byte[] types;
+    private final int[] weights;
+
+    // tree[size + i] is entry i; every inner node holds the heavier entry of its two children
+    private final int[] tree;
+
+    private SuggestionIndex(byte[] keys, int[] keyOffsets, byte[] texts, int[] textOffsets, byte[] types,
+                            int[] weights) {
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.texts = texts;
+        this.textOffsets = textOffsets;
+        this.types = types;
+        this.weights = weights;
+        this.tree = buildTree(weights.length);
+    }
+
+    public static SuggestionIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Diacritics stripped, lower-cased and runs of whitespace collapsed to one space.
+     */
+    public static String normalize(String text) {
+        return WHITESPACE.matcher(TextAnalyzer.normalize(text).strip()).replaceAll(" ");
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * The heaviest entries whose key starts with {@code prefix}, which must already
+     * be normalized, heaviest first and ties in key order.
+     */
+    public List<BookSuggestionDto> top(String prefix, int limit) {
+        byte[] wanted = prefix.getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(wanted);
+        int to = upperBound(wanted, from);
+
+        List<BookSuggestionDto> top = new ArrayList<>(Math.min(limit, to - from));
+        if (from == to) {
+            return top;
+        }
+
+        // ranges ordered by their heaviest entry; taking one splits its range in two
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator.comparingLong(range -> rank(range[0])));
+        ranges.add(new int[]{heaviest(from, to), from, to});
+
+        while (top.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int entry = range[0];
+            top.add(suggestion(entry));
+
+            if (range[1] < entry) {
+                ranges.add(new int[]{heaviest(range[1], entry), range[1], entry});
+            }
+            if (entry + 1 < range[2]) {
+                ranges.add(new int[]{heaviest(entry + 1, range[2]), entry + 1, range[2]});
+            }
+        }
+        return top;
+    }
+
+    /**
+     * The weight of the entry with exactly this normalized key and type, 0 if there is none.
+     */
+    public long weight(String key, BookSuggestionDto.Type type) {
+        byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        for (int entry = lowerBound(wanted); entry < size() && compareKey(entry, wanted) == 0; entry++) {
+            if (types[entry] == type.ordinal()) {
+                return weights[entry];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Estimated heap retained by the index.
+     */
+    public long footprintBytes() {
+        return array(keys.length, 1) + array(keyOffsets.length, Integer.BYTES) + array(texts.length, 1)
+                + array(textOffsets.length, Integer.BYTES) + array(types.length, 1)
+                + array(weights.length, Integer.BYTES) + array(tree.length, Integer.BYTES);
+    }
+
+    private BookSuggestionDto suggestion(int entry) {
+        String text = new String(texts, textOffsets[entry], textOffsets[entry + 1] - textOffsets[entry],
+                StandardCharsets.UTF_8);
+        return new BookSuggestionDto(text, TYPES[types[entry]], weights[entry]);
+    }
+
+    // lower ranks first: heavier, then earlier in key order
+    private long rank(int entry) {
+        return ((long) -weights[entry] << 32) | entry;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return weights[a] > weights[b] || weights[a] == weights[b] && a < b ? a : b;
+    }
+
+    private int heaviest(int from, int to) {
+        int size = weights.length;
+        int heaviest = -1;
+        for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                heaviest = heavier(heaviest, tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                heaviest = heavier(heaviest, tree[--right]);
+            }
+        }
+        return heaviest;
+    }
+
+    private int[] buildTree(int size) {
+        int[] built = new int[2 * size];
+        for (int entry = 0; entry < size; entry++) {
+            built[size + entry] = entry;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            built[node] = heavier(built[2 * node], built[2 * node + 1]);
+        }
+        return built;
+    }
+
+    // the first entry whose key is not less than the prefix
+    private int lowerBound(byte[] prefix) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareKey(middle, prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // the first entry from the given one on whose key does not start with the prefix
+    private int upperBound(byte[] prefix, int from) {
+        int low = from;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int start = keyOffsets[middle];
+            int length = Math.min(keyOffsets[middle + 1] - start, prefix.length);
+            if (Arrays.compareUnsigned(keys, start, start + length, prefix, 0, prefix.length) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareKey(int entry, byte[] other) {
+        return Arrays.compareUnsigned(keys, keyOffsets[entry], keyOffsets[entry + 1], other, 0, other.length);
+    }
+
+    private static long array(int length, int elementBytes) {
+        // object header and array length, padded to 8 bytes
+        return (16L + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    public static final class Builder {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds to the weight of the entry for {@code text}. Texts normalizing to the
+         * same key are one entry, shown as the text that brought it the most weight.
+         */
+        public Builder add(String text, BookSuggestionDto.Type type, long weight) {
+            String key = normalize(text);
+            if (!key.isEmpty() && weight > 0) {
+                entries.add(new Entry(key.getBytes(StandardCharsets.UTF_8), type, text, weight));
+            }
+            return this;
+        }
+
+        public SuggestionIndex build() {
+            // unsigned UTF-8 byte order is code point order, the order the lookups search in
+            entries.sort(Comparator.<Entry, byte[]>comparing(Entry::key, Arrays::compareUnsigned)
+                    .thenComparing(Entry::type));
+
+            List<Entry> merged = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); ) {
+                Entry first = entries.get(i);
+                String text = first.text();
+                long heaviest = 0;
+                long weight = 0;
+                for (; i < entries.size() && entries.get(i).sameAs(first); i++) {
+                    Entry entry = entries.get(i);
+                    weight += entry.weight();
+                    if (entry.weight() > heaviest) {
+                        heaviest = entry.weight();
+                        text = entry.text();
+                    }
+                }
+                merged.add(new Entry(first.key(), first.type(), text, weight));
+            }
+
+            return pack(merged);
+        }
+
+        private static SuggestionIndex pack(List<Entry> merged) {
+            int size = merged.size();
+            int[] keyOffsets = new int[size + 1];
+            int[] textOffsets = new int[size + 1];
+            byte[][] encodedTexts = new byte[size][];
+            for (int i = 0; i < size; i++) {
+                encodedTexts[i] = merged.get(i).text().getBytes(StandardCharsets.UTF_8);
+                keyOffsets[i + 1] = keyOffsets[i] + merged.get(i).key().length;
+                textOffsets[i + 1] = textOffsets[i] + encodedTexts[i].length;
+            }
+
+            byte[] keys = new byte[keyOffsets[size]];
+            byte[] texts = new byte[textOffsets[size]];
+            byte[] types = new byte[size];
+            int[] weights = new int[size];
+            for (int i = 0; i < size; i++) {
+                Entry entry = merged.get(i);
+                System.arraycopy(entry.key(), 0, keys, keyOffsets[i], entry.key().length);
+                System.arraycopy(encodedTexts[i], 0, texts, textOffsets[i], encodedTexts[i].length);
+                types[i] = (byte) entry.type().ordinal();
+                weights[i] = (int) Math.min(entry.weight(), Integer.MAX_VALUE);
+            }
+
+            return new SuggestionIndex(keys, keyOffsets, texts, textOffsets, types, weights);
+        }
+    }
+
+    private record Entry(byte[] key, BookSuggestionDto.Type type, String text, long weight) {
+
+        boolean sameAs(Entry other) {
+            return type == other.type && Arrays.equals(key, other.key);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.chiedo.bookapi.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers successful HTTP Basic authentications so repeated requests skip the
+ * user lookup and the BCrypt check. Presented passwords are never stored: an entry
+ * holds an HMAC of the credentials under a key generated at startup, and a lookup
+ * only hits when the HMAC of the presented credentials matches.
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, CachedAuthentication> cache;
+
+    // usernames invalidated recently, so an authentication that was already in
+    // flight when the user changed cannot put the old credentials back
+    private final Cache<String, Long> invalidations;
+
+    private final SecretKeySpec key;
+
+    // constructor injection
+    public AuthenticationCache(@Value("${books.security.auth-cache.max-size:10000}") long maxSize,
+                               @Value("${books.security.auth-cache.ttl:5m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        // exposes cache.gets{result=hit|miss}, cache.evictions and cache.size
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authentication");
+    }
+
+    public Authentication get(String username, String password) {
+        CachedAuthentication cached = cache.getIfPresent(username);
+
+        if (cached == null || !MessageDigest.isEqual(cached.credentialHash(), hash(username, password))) {
+            return null;
+        }
+
+        return cached.authentication();
+    }
+
+    /**
+     * @param startedAt {@link System#nanoTime()} taken before the credentials were verified
+     */
+    public void put(String username, String password, Authentication authentication, long startedAt) {
+        Long invalidatedAt = invalidations.getIfPresent(username);
+
+        if (invalidatedAt != null && invalidatedAt - startedAt >= 0) {
+            return;
+        }
+
+        cache.put(username, new CachedAuthentication(hash(username, password), authentication));
+    }
+
+    public void invalidate(String username) {
+        invalidations.put(username, System.nanoTime());
+        cache.invalidate(username);
+    }
+
+    private byte[] hash(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private record CachedAuthentication(byte[] credentialHash, Authentication authentication) {
+    }
+}
@@ -0,0 +1,79 @@
+package dev.chiedo.bookapi.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.concurrent.TimeUnit;
+
+
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final AuthenticationCache authenticationCache;
+
+    private final Timer cachedAuthentications;
+
+    private final Timer verifiedAuthentications;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate,
+                                         AuthenticationCache authenticationCache,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.authenticationCache = authenticationCache;
+        this.cachedAuthentications = timer(meterRegistry, "hit");
+        this.verifiedAuthentications = timer(meterRegistry, "miss");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("books.auth")
+                .description("Time to authenticate HTTP Basic credentials, including failures")
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+
+        if (username == null || credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String password = credentials.toString();
+
+        long startedAt = System.nanoTime();
+
+        Authentication cached = authenticationCache.get(username, password);
+
+        if (cached != null) {
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken
+                    .authenticated(cached.getPrincipal(), null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            cachedAuthentications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return result;
+        }
+
+        try {
+            Authentication result = delegate.authenticate(authentication);
+
+            if (result != null && result.isAuthenticated()) {
+                authenticationCache.put(username, password, result, startedAt);
+            }
+
+            return result;
+        } finally {
+            verifiedAuthentications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -2,6 +2,7 @@ package dev.chiedo.bookapi.user;
 
 import dev.chiedo.bookapi.model.entity.UserEntity;
 import dev.chiedo.bookapi.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -18,6 +19,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     }
 
     @Override
+    @Timed(value = "books.auth.user.lookup", description = "Time to load a user for authentication")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         UserEntity user = userRepository
                 .findAppUserByUsername(username)
@@ -0,0 +1,149 @@
+package dev.chiedo.bookapi.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Response bodies of the hottest reads, serialized once and written as bytes: single
+ * books by id, and pages of the collection. A book's entry is evicted once a
+ * transaction changing it commits. Pages are keyed by the catalog version, which
+ * every write moves on, so a write never leaves a stale page to be served under a
+ * new ETag; superseded pages are dropped on each change.
+ * <p>
+ * A miss is loaded on the caller's thread, which keeps the request's context (and so
+ * read-your-writes routing), while concurrent callers for the same key wait on its
+ * future instead of a map lock. An entry evicted while it is loading is gone for
+ * good, not put back stale.
+ */
+@Component
+public class BookJsonCache {
+
+    private record PageKey(long catalogVersion, BookSort sort, BookCursor after, int limit) {
+    }
+
+    private final BookService bookService;
+    private final ObjectWriter bookWriter;
+    private final ObjectWriter listWriter;
+    private final boolean enabled;
+    private final int gzipMinSize;
+
+    private final AsyncCache<Long, CachedJson> books;
+    private final AsyncCache<PageKey, CachedJson> pages;
+
+    // constructor injection
+    public BookJsonCache(BookService bookService,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${books.json-cache.enabled:true}") boolean enabled,
+                         @Value("${books.json-cache.max-books:10000}") long maxBooks,
+                         @Value("${books.json-cache.max-pages:1000}") long maxPages,
+                         @Value("${books.json-cache.ttl:10m}") Duration ttl,
+                         @Value("${books.json-cache.gzip-min-size:1024}") int gzipMinSize) {
+        this.bookService = bookService;
+        this.bookWriter = objectMapper.writerFor(BookDto.class);
+        this.listWriter = objectMapper.writerFor(
+                objectMapper.getTypeFactory().constructCollectionType(List.class, BookDto.class));
+        this.enabled = enabled;
+        this.gzipMinSize = gzipMinSize;
+
+        // the TTL bounds how long a change made by another instance goes unseen
+        this.books = Caffeine.newBuilder()
+                .maximumSize(maxBooks)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, books, "bookJson");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "bookPageJson");
+    }
+
+    public Optional<CachedJson> book(long bookId) {
+        if (!enabled) {
+            return loadBook(bookId);
+        }
+
+        return Optional.ofNullable(get(books, bookId, id -> loadBook(id).orElse(null)));
+    }
+
+    /**
+     * @param catalogVersion read before calling, so a change made meanwhile gets a newer version
+     */
+    public CachedJson page(long catalogVersion, BookSort sort, BookCursor after, int limit) {
+        PageKey key = new PageKey(catalogVersion, sort, after, limit);
+
+        return enabled ? get(pages, key, this::loadPage) : loadPage(key);
+    }
+
+    // the first caller of a missing key loads it; a null value is not kept
+    private static <K> CachedJson get(AsyncCache<K, CachedJson> cache, K key, Function<K, CachedJson> loader) {
+        CompletableFuture<CachedJson> loading = new CompletableFuture<>();
+        CompletableFuture<CachedJson> existing = cache.asMap().putIfAbsent(key, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            loading.complete(loader.apply(key));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    // after the book cache the bytes are loaded through, or a load in between would
+    // serialize the old book again
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        books.synchronous().invalidate(event.bookId());
+        pages.synchronous().invalidateAll();
+    }
+
+    private Optional<CachedJson> loadBook(long bookId) {
+        return bookService.findById(bookId)
+                .map(book -> CachedJson.of(book.getVersion(), write(bookWriter, book), null, gzipMinSize));
+    }
+
+    private CachedJson loadPage(PageKey key) {
+        BookPage page = bookService.findPage(key.sort(), key.after(), key.limit());
+
+        return CachedJson.of(key.catalogVersion(), write(listWriter, page.books()), page.next(), gzipMinSize);
+    }
+
+    private static byte[] write(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
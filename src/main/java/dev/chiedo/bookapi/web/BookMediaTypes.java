@@ -0,0 +1,47 @@
+package dev.chiedo.bookapi.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.List;
+
+/**
+ * The formats book resources are written in: JSON, and CBOR or Smile for callers that
+ * would rather not parse text. All three carry the same fields as {@code BookDto}.
+ */
+public final class BookMediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    // in order of preference when the Accept header does not choose
+    private static final List<MediaType> PRODUCIBLE =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    private BookMediaTypes() {
+    }
+
+    /**
+     * The producible type the request accepts most, for handlers that write JSON some
+     * other way than through the message converters. Falls back to JSON, which the
+     * handler's {@code produces} has already let through when nothing else matches.
+     */
+    public static MediaType negotiate(ContentNegotiationManager contentNegotiationManager, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        // sorted by quality, then specificity
+        for (MediaType accepted : contentNegotiationManager.resolveMediaTypes(request)) {
+            if (accepted.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType producible : PRODUCIBLE) {
+                if (accepted.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.chiedo.bookapi.web;
+
+import dev.chiedo.bookapi.pagination.BookCursor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once: the UTF-8 JSON and, when it is big enough to be
+ * worth it, the same bytes gzipped. The arrays are shared by every response that
+ * writes them and must not be modified.
+ *
+ * @param version the book's version or the catalog's, for the ETag
+ * @param next    where the following page starts, for pages that have one
+ */
+public record CachedJson(long version, byte[] json, byte[] gzipped, BookCursor next) {
+
+    static CachedJson of(long version, byte[] json, BookCursor next, int gzipMinSize) {
+        return new CachedJson(version, json, json.length >= gzipMinSize ? gzip(json) : null, next);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return gzipped.toByteArray();
+    }
+}
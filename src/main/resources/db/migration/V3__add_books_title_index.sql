@@ -0,0 +1,2 @@
+-- Supports keyset pagination ordered by title
+CREATE INDEX idx_books_title_book_id ON books (title, book_id);
@@ -0,0 +1,7 @@
+-- Identity columns stop Hibernate from batching inserts. Book ids now come from a
+-- sequence that hands out blocks of 50 (pooled-lo optimizer), starting after the
+-- highest existing id.
+CREATE SEQUENCE books_seq START WITH (SELECT COALESCE(MAX(book_id), 0) + 1 FROM books) INCREMENT BY 50;
+
+ALTER TABLE books ALTER COLUMN book_id DROP IDENTITY;
+ALTER TABLE books ALTER COLUMN book_id SET DEFAULT NEXT VALUE FOR books_seq;
@@ -0,0 +1,36 @@
+-- ISBNs are stored as entered. isbn_normalized keeps only digits and X, upper-cased,
+-- with ISBN-10s rewritten as their 978-prefixed ISBN-13 (check digit recomputed),
+-- so "0-306-40615-2" and "978-0306406157" are the same book. Only ISBN-10s with a
+-- right check digit are rewritten; any other ten characters are kept as they are.
+-- Mirrors dev.chiedo.bookapi.isbn.IsbnNormalizer; change both together.
+ALTER TABLE books ADD COLUMN isbn_normalized VARCHAR(50) GENERATED ALWAYS AS (
+    CASE
+        WHEN REGEXP_LIKE(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), '^[0-9]{9}[0-9X]$')
+            THEN CASE WHEN MOD(
+                    10 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 1, 1) AS INT)
+                    + 9 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 2, 1) AS INT)
+                    + 8 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 3, 1) AS INT)
+                    + 7 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 4, 1) AS INT)
+                    + 6 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 5, 1) AS INT)
+                    + 5 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 6, 1) AS INT)
+                    + 4 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 7, 1) AS INT)
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 8, 1) AS INT)
+                    + 2 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 9, 1) AS INT)
+                    + CASE WHEN SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 10, 1) = 'X' THEN 10 ELSE CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 10, 1) AS INT) END, 11) = 0
+                THEN '978' || LEFT(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 9) || CAST(MOD(10 - MOD(38
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 1, 1) AS INT)
+                    + CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 2, 1) AS INT)
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 3, 1) AS INT)
+                    + CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 4, 1) AS INT)
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 5, 1) AS INT)
+                    + CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 6, 1) AS INT)
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 7, 1) AS INT)
+                    + CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 8, 1) AS INT)
+                    + 3 * CAST(SUBSTRING(REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', ''), 9, 1) AS INT), 10), 10) AS VARCHAR)
+                ELSE REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', '')
+            END
+        ELSE REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', '')
+    END
+);
+
+CREATE UNIQUE INDEX ux_books_isbn_normalized ON books (isbn_normalized);
@@ -0,0 +1,11 @@
+-- Optimistic-locking version of each book, exposed as its ETag.
+ALTER TABLE books ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- Single-row counter bumped by every transaction that writes books; the ETag of
+-- the book collection.
+CREATE TABLE book_catalog_version (
+    id      INT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO book_catalog_version (id, version) VALUES (1, 0);
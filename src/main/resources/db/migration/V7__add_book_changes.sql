@@ -0,0 +1,17 @@
+-- Change log of the catalog, read by GET /api/v1/books/changes. Sequence numbers
+-- are drawn just before commit, while the transaction holds the row lock on
+-- book_catalog_version, so they become visible in increasing order.
+CREATE SEQUENCE book_changes_seq START WITH 1;
+
+CREATE TABLE book_changes (
+    seq         BIGINT PRIMARY KEY,
+    type        VARCHAR(10) NOT NULL,
+    book_id     BIGINT NOT NULL,
+    -- the book after the change; null for deletions
+    title       VARCHAR(50),
+    author      VARCHAR(50),
+    description VARCHAR(256),
+    isbn        VARCHAR(50),
+    version     BIGINT,
+    changed_at  TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
@@ -0,0 +1,57 @@
+package dev.chiedo.bookapi;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.service.BookService;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Books for tests that write through the service. The ISBNs are unique across the
+ * test run, so tests sharing a context never collide.
+ */
+public final class TestBooks {
+
+    private static final AtomicLong ISBNS = new AtomicLong(9_790_000_000_000L);
+
+    private TestBooks() {
+    }
+
+    public static String nextIsbn() {
+        return Long.toString(ISBNS.getAndIncrement());
+    }
+
+    public static BookDto book(String title, String author) {
+        return new BookDto(null, title, author, "Written by a test", nextIsbn(), null);
+    }
+
+    /**
+     * Goes through every kind of write the service has: a save, a saveAll of three,
+     * patches moving the first book to {@code otherAuthor} and renaming it, an update
+     * and an updateAll, then a deleteAll of two and a delete. Returns the only book
+     * left, the first one, now by {@code otherAuthor}.
+     */
+    public static BookDto writeEveryWay(BookService bookService, String title, String author, String otherAuthor) {
+        BookDto first = book(title, author);
+        bookService.save(first);
+        List<BookDto> batch = List.of(book(title, author), book(title, author), book(title, otherAuthor));
+        bookService.saveAll(batch);
+
+        // moving a book to another author, and a change that keeps the author
+        bookService.patch(first.getBookId(), new BookPatchDto(null, otherAuthor, null, null), null);
+        bookService.patch(first.getBookId(), new BookPatchDto(title + " renamed", null, null, null), null);
+
+        BookDto replaced = batch.get(2);
+        bookService.update(replaced.getBookId(), new BookDto(null, title + " replaced", author,
+                replaced.getDescription(), replaced.getIsbn(), null));
+        BookDto moved = batch.get(0);
+        bookService.updateAll(List.of(new BookDto(moved.getBookId(), moved.getTitle(), otherAuthor,
+                moved.getDescription(), moved.getIsbn(), null)));
+
+        bookService.deleteAll(List.of(batch.get(0).getBookId(), batch.get(1).getBookId()));
+        bookService.delete(replaced.getBookId(), null);
+
+        return bookService.findById(first.getBookId()).orElseThrow();
+    }
+}
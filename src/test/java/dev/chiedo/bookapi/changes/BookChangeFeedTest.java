@@ -0,0 +1,122 @@
+package dev.chiedo.bookapi.changes;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.event.BookChangedEvent;
+import dev.chiedo.bookapi.model.dto.BookChangesDto;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BookChangeFeedTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookChangeFeed changeFeed;
+
+    @Autowired
+    private BookChangeLog changeLog;
+
+    @Test
+    void changesAreLoggedInCommitOrder() throws InterruptedException {
+        long since = changeFeed.latest();
+
+        BookDto book = TestBooks.book("Logged", "Author");
+        bookService.save(book);
+        bookService.patch(book.getBookId(), new BookPatchDto("Relogged", null, null, null), null);
+        bookService.delete(book.getBookId(), null);
+
+        BookChangesDto changes = poll(since, 10, Duration.ZERO);
+
+        assertEquals(List.of(BookChangedEvent.Type.CREATED, BookChangedEvent.Type.UPDATED, BookChangedEvent.Type.DELETED),
+                changes.changes().stream().map(BookChangesDto.Change::type).toList());
+        assertEquals("Relogged", changes.changes().get(1).book().getTitle());
+        assertNull(changes.changes().get(2).book());
+        assertEquals(changes.changes().get(2).seq(), changes.next());
+        assertFalse(changes.more());
+    }
+
+    @Test
+    void upToDateReaderWaitsForTheNextCommit() throws InterruptedException {
+        long since = changeFeed.latest();
+
+        DeferredResult<BookChangesDto> result = changeFeed.poll(since, 10, Duration.ofSeconds(30));
+        assertFalse(result.hasResult());
+
+        bookService.save(TestBooks.book("Awaited", "Author"));
+
+        BookChangesDto changes = await(result);
+        assertEquals(1, changes.changes().size());
+        assertEquals("Awaited", changes.changes().get(0).book().getTitle());
+    }
+
+    @Test
+    void limitLeavesTheRestForTheNextPoll() throws InterruptedException {
+        long since = changeFeed.latest();
+
+        bookService.saveAll(List.of(
+                TestBooks.book("First", "Author"),
+                TestBooks.book("Second", "Author")));
+
+        BookChangesDto first = poll(since, 1, Duration.ZERO);
+        assertTrue(first.more());
+        assertEquals("First", first.changes().get(0).book().getTitle());
+
+        BookChangesDto second = poll(first.next(), 1, Duration.ZERO);
+        assertFalse(second.more());
+        assertEquals("Second", second.changes().get(0).book().getTitle());
+    }
+
+    @Test
+    void compactedChangesAreGone() throws InterruptedException {
+        long since = changeFeed.latest();
+
+        for (String title : List.of("Old", "Older", "Oldest")) {
+            bookService.save(TestBooks.book(title, "Author"));
+            // the cutoff below has to fall between the changes
+            Thread.sleep(5);
+        }
+        List<BookChangesDto.Change> written = poll(since, 10, Duration.ZERO).changes();
+
+        // up to this test's last change, so nothing written after it is removed
+        changeLog.compact(written.get(2).changedAt(), 100);
+
+        DeferredResult<BookChangesDto> result = changeFeed.poll(since, 10, Duration.ZERO);
+        assertInstanceOf(ChangesCompactedException.class, result.getResult());
+
+        // the newest compactable change is kept, so a reader that saw the one before it is fine
+        assertEquals(seqs(written.subList(1, 3)), seqs(poll(written.get(0).seq(), 10, Duration.ZERO).changes()));
+    }
+
+    private static List<Long> seqs(List<BookChangesDto.Change> changes) {
+        return changes.stream().map(BookChangesDto.Change::seq).toList();
+    }
+
+    private BookChangesDto poll(long since, int limit, Duration wait) throws InterruptedException {
+        return await(changeFeed.poll(since, limit, wait));
+    }
+
+    private static BookChangesDto await(DeferredResult<BookChangesDto> result) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!result.hasResult() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return (BookChangesDto) result.getResult();
+    }
+}
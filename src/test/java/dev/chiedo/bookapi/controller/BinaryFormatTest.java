@@ -0,0 +1,110 @@
+package dev.chiedo.bookapi.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.web.BookMediaTypes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "books.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class BinaryFormatTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper CBOR = new ObjectMapper(new CBORFactory());
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void cborAndSmileBodiesAreAccepted() throws Exception {
+        Map<String, Object> cbor = book("Sent as CBOR");
+        Map<String, Object> smile = book("Sent as Smile");
+
+        String cborBook = create(MediaType.APPLICATION_CBOR, CBOR.writeValueAsBytes(cbor));
+        String smileBook = create(BookMediaTypes.APPLICATION_SMILE, SMILE.writeValueAsBytes(smile));
+
+        assertEquals(cbor.get("title"), read(cborBook, MediaType.APPLICATION_JSON, JSON).get("title"));
+        assertEquals(smile.get("isbn"), read(smileBook, MediaType.APPLICATION_JSON, JSON).get("isbn"));
+    }
+
+    @Test
+    void everyFormatHasTheFieldsOfTheJson() throws Exception {
+        String location = create(MediaType.APPLICATION_JSON, JSON.writeValueAsBytes(book("Read every way")));
+
+        Map<String, Object> json = read(location, MediaType.APPLICATION_JSON, JSON);
+
+        assertEquals(json, read(location, MediaType.APPLICATION_CBOR, CBOR));
+        assertEquals(json, read(location, BookMediaTypes.APPLICATION_SMILE, SMILE));
+        assertEquals(Set.of("bookId", "title", "author", "description", "isbn", "version"), json.keySet());
+    }
+
+    @Test
+    void eachFormatHasItsOwnETag() throws Exception {
+        String location = create(MediaType.APPLICATION_JSON, JSON.writeValueAsBytes(book("Tagged every way")));
+
+        Set<String> eTags = new HashSet<>();
+        for (MediaType format : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+                BookMediaTypes.APPLICATION_SMILE)) {
+            eTags.add(fetch(location, format).getHeader(HttpHeaders.ETAG));
+        }
+        assertEquals(3, eTags.size(), eTags::toString);
+
+        String jsonETag = fetch(location, MediaType.APPLICATION_JSON).getHeader(HttpHeaders.ETAG);
+        assertEquals(200, mockMvc.perform(get(location).with(user("reader"))
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andReturn().getResponse().getStatus());
+        assertEquals(304, mockMvc.perform(get("/api/v1/books").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, fetch("/api/v1/books", MediaType.APPLICATION_CBOR)
+                                .getHeader(HttpHeaders.ETAG)))
+                .andReturn().getResponse().getStatus());
+    }
+
+    private static Map<String, Object> book(String title) {
+        return Map.of("title", title, "author", "Binary Writer", "description", "Not text",
+                "isbn", TestBooks.nextIsbn());
+    }
+
+    private String create(MediaType format, byte[] body) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(post("/api/v1/books")
+                .with(user("writer").roles("USER"))
+                .contentType(format)
+                .content(body)).andReturn().getResponse();
+        assertEquals(201, response.getStatus());
+        return response.getHeader(HttpHeaders.LOCATION);
+    }
+
+    private MockHttpServletResponse fetch(String path, MediaType format) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(path).with(user("reader")).accept(format))
+                .andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals(format.toString(), response.getContentType());
+        return response;
+    }
+
+    private Map<String, Object> read(String path, MediaType format, ObjectMapper mapper) throws Exception {
+        return mapper.readValue(fetch(path, format).getContentAsByteArray(), new TypeReference<>() {
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package dev.chiedo.bookapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "books.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class BookExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void everyBookIsOneJsonLine() throws Exception {
+        bookService.save(TestBooks.book("Exported \"quoted\"\nover two lines", "Export Writer"));
+
+        MvcResult started = mockMvc.perform(get("/api/v1/books/export").with(user("reader"))).andReturn();
+        assertTrue(started.getRequest().isAsyncStarted());
+        // the whole catalog has to fit in the async timeout, not the container default
+        assertEquals(Duration.ofHours(1).toMillis(), started.getRequest().getAsyncContext().getTimeout());
+
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+
+        String body = response.getContentAsString();
+        assertTrue(body.endsWith("\n"), "every line is terminated");
+
+        List<BookDto> exported = new ArrayList<>();
+        for (String line : body.substring(0, body.length() - 1).split("\n", -1)) {
+            exported.add(objectMapper.readValue(line, BookDto.class));
+        }
+
+        List<BookDto> catalog = bookService.findAll();
+        assertEquals(catalog.size(), exported.size());
+        assertEquals(catalog.stream().map(BookDto::getBookId).sorted().toList(),
+                exported.stream().map(BookDto::getBookId).sorted().toList());
+        assertTrue(exported.stream().anyMatch(book -> book.getTitle().equals("Exported \"quoted\"\nover two lines")));
+    }
+}
@@ -0,0 +1,156 @@
+package dev.chiedo.bookapi.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "books.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class BookPaginationTest {
+
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cursorsSurviveEncoding() {
+        BookCursor byTitle = new BookCursor(BookSort.TITLE, 42, "Title: with a colon, ünïcödé");
+        BookCursor byId = new BookCursor(BookSort.ID, 7, null);
+
+        assertEquals(byTitle, BookCursor.decode(byTitle.encode()));
+        assertEquals(byId, BookCursor.decode(byId.encode()));
+        assertFalse(byTitle.encode().matches(".*[+/=].*"), "URL-safe and unpadded");
+
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.decode("not a cursor"));
+        String titleless = Base64.getUrlEncoder().encodeToString("TITLE:7".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.decode(titleless));
+    }
+
+    @Test
+    void nextLinksWalkTheWholeCatalogOnce() throws Exception {
+        TestBooks.writeEveryWay(bookService, "Paged", "Paged Writer", "Paged Other");
+
+        List<BookDto> walked = new ArrayList<>();
+        String next = "/api/v1/books?limit=7";
+        while (next != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(next)).andReturn().getResponse();
+            assertEquals(200, response.getStatus());
+            List<BookDto> page = books(response);
+            walked.addAll(page);
+
+            next = nextLink(response);
+            if (next != null) {
+                assertEquals(7, page.size());
+                assertTrue(next.contains("limit=7"), next);
+            }
+        }
+
+        assertEquals(bookService.findAll().stream().map(BookDto::getBookId).sorted().toList(), ids(walked));
+    }
+
+    @Test
+    void booksWithTheSameTitleAreNeitherSkippedNorRepeated() throws Exception {
+        String title = "Paged tie " + TestBooks.nextIsbn();
+        List<BookDto> tied = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tied.add(TestBooks.book(title, "Paged Writer"));
+        }
+        bookService.saveAll(tied);
+        BookDto following = TestBooks.book(title + " continued", "Paged Writer");
+        bookService.save(following);
+
+        // from just before the title, in pages that end between books of the same title
+        String after = new BookCursor(BookSort.TITLE, 0, title).encode();
+        List<BookDto> walked = new ArrayList<>();
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/books")
+                .param("after", after).param("limit", "2")).andReturn().getResponse();
+        for (int pages = 0; pages < 3; pages++) {
+            walked.addAll(books(response));
+            response = mockMvc.perform(get(nextLink(response))).andReturn().getResponse();
+        }
+
+        assertEquals(ids(tied), ids(walked.subList(0, 5)));
+        assertEquals(following.getBookId(), walked.get(5).getBookId());
+    }
+
+    @Test
+    void lastPageHasNoNextLink() throws Exception {
+        BookDto last = TestBooks.book("Paged last", "Paged Writer");
+        bookService.save(last);
+
+        String after = new BookCursor(BookSort.ID, last.getBookId() - 1, null).encode();
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/books")
+                .param("after", after).param("limit", "5")).andReturn().getResponse();
+
+        assertEquals(List.of(last.getBookId()), ids(books(response)));
+        assertNull(response.getHeader(HttpHeaders.LINK));
+    }
+
+    @Test
+    void invalidPagesAreRejected() throws Exception {
+        assertEquals(400, mockMvc.perform(get("/api/v1/books").param("limit", "0")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books").param("limit", "1001")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books").param("after", "garbage")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books").param("sort", "isbn")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books/changes").param("limit", "0").with(user("reader")))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books/changes").param("since", "-1").with(user("reader")))
+                .andReturn().getResponse().getStatus());
+    }
+
+    private List<BookDto> books(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() {
+        });
+    }
+
+    private static String nextLink(MockHttpServletResponse response) {
+        String link = response.getHeader(HttpHeaders.LINK);
+        if (link == null) {
+            return null;
+        }
+        Matcher matcher = NEXT_LINK.matcher(link);
+        assertTrue(matcher.matches(), link);
+        return matcher.group(1);
+    }
+
+    private static List<Long> ids(List<BookDto> books) {
+        return books.stream().map(BookDto::getBookId).toList();
+    }
+}
@@ -0,0 +1,184 @@
+package dev.chiedo.bookapi.controller;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@SpringBootTest(properties = "books.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void unchangedBookIsAnsweredWithNotModified() throws Exception {
+        BookDto book = saved();
+        String eTag = eTag(book);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/books/" + book.getBookId())
+                .with(user("reader")).header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn().getResponse();
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+    }
+
+    @Test
+    void collectionETagChangesAfterAWrite() throws Exception {
+        String before = mockMvc.perform(get("/api/v1/books")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(before);
+        assertEquals(304, mockMvc.perform(get("/api/v1/books").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andReturn().getResponse().getStatus());
+
+        saved();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/books")
+                .header(HttpHeaders.IF_NONE_MATCH, before)).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertNotEquals(before, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void gzippedAndIdentityBodiesAreTaggedApart() throws Exception {
+        // enough for the first page to be worth gzipping
+        for (int i = 0; i < 10; i++) {
+            saved();
+        }
+        MockHttpServletResponse identity = mockMvc.perform(get("/api/v1/books")).andReturn().getResponse();
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/v1/books")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andReturn().getResponse();
+
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(identity.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+
+        assertEquals(200, mockMvc.perform(get("/api/v1/books")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, identity.getHeader(HttpHeaders.ETAG)))
+                .andReturn().getResponse().getStatus());
+
+        MockHttpServletResponse notModified = mockMvc.perform(get("/api/v1/books")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipped.getHeader(HttpHeaders.ETAG))).andReturn().getResponse();
+        assertEquals(304, notModified.getStatus());
+        assertEquals(gzipped.getHeaders(HttpHeaders.VARY), notModified.getHeaders(HttpHeaders.VARY));
+        assertTrue(notModified.getHeader(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void staleIfMatchIsRefused() throws Exception {
+        BookDto book = saved();
+        String stale = eTag(book);
+        MockHttpServletResponse renamed = patchTitle(book, "Renamed", stale);
+        assertEquals(200, renamed.getStatus());
+        String current = renamed.getHeader(HttpHeaders.ETAG);
+        assertNotEquals(stale, current);
+
+        assertEquals(412, patchTitle(book, "Lost update", stale).getStatus());
+        assertEquals(412, mockMvc.perform(delete("/api/v1/books/" + book.getBookId())
+                .with(user("admin").roles("USER", "ADMIN")).header(HttpHeaders.IF_MATCH, stale))
+                .andReturn().getResponse().getStatus());
+        assertEquals("Renamed", bookService.findById(book.getBookId()).orElseThrow().getTitle());
+
+        assertEquals(200, patchTitle(book, "Renamed again", current).getStatus());
+    }
+
+    @Test
+    void anyOfSeveralIfMatchTagsMayMatch() throws Exception {
+        BookDto book = saved();
+        String current = eTag(book);
+        long version = Long.parseLong(current.replace("\"", ""));
+        String other = "\"" + (version + 5) + "\"";
+
+        assertEquals(412, patchTitle(book, "None", other + ", \"" + (version + 6) + "\"").getStatus());
+        assertEquals(412, patchTitle(book, "Weak", "W/" + current).getStatus());
+
+        MockHttpServletResponse response = patchTitle(book, "One of two", other + ", " + current);
+        assertEquals(200, response.getStatus());
+        assertEquals(200, patchTitle(book, "Any", other + ", *").getStatus());
+        assertEquals("Any", bookService.findById(book.getBookId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void putReplacesEveryFieldUnlessTheBookChanged() throws Exception {
+        BookDto book = saved();
+        String stale = eTag(book);
+        String isbn = TestBooks.nextIsbn();
+
+        assertEquals(204, replace(book.getBookId(), "Replaced", isbn, stale).getStatus());
+        BookDto replaced = bookService.findById(book.getBookId()).orElseThrow();
+        assertEquals(List.of("Replaced", "Replacing Writer", "Replaced whole", isbn),
+                List.of(replaced.getTitle(), replaced.getAuthor(), replaced.getDescription(), replaced.getIsbn()));
+
+        assertEquals(412, replace(book.getBookId(), "Lost update", TestBooks.nextIsbn(), stale).getStatus());
+        assertEquals("Replaced", bookService.findById(book.getBookId()).orElseThrow().getTitle());
+
+        assertEquals(404, replace(Long.MAX_VALUE, "Nowhere", TestBooks.nextIsbn(), null).getStatus());
+    }
+
+    @Test
+    void blankPatchFieldsAreRejected() throws Exception {
+        BookDto book = saved();
+
+        assertEquals(400, patchTitle(book, " ", null).getStatus());
+        assertEquals(400, patchTitle(book, "\\t", null).getStatus());
+        assertEquals(200, patchTitle(book, " Padded ", null).getStatus());
+    }
+
+    private BookDto saved() {
+        BookDto book = TestBooks.book("Conditional", "Conditional Writer");
+        bookService.save(book);
+        return book;
+    }
+
+    private String eTag(BookDto book) throws Exception {
+        return mockMvc.perform(get("/api/v1/books/" + book.getBookId()).with(user("reader")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletResponse replace(long bookId, String title, String isbn, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = put("/api/v1/books/" + bookId)
+                .with(user("writer").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\",\"author\":\"Replacing Writer\","
+                        + "\"description\":\"Replaced whole\",\"isbn\":\"" + isbn + "\"}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse patchTitle(BookDto book, String title, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = patch("/api/v1/books/" + book.getBookId())
+                .with(user("writer").roles("USER", "ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\"}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,98 @@
+package dev.chiedo.bookapi.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two H2 databases stand in for the primary and a replica; each knows its own name.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = database("primary");
+
+    @AfterEach
+    void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        DataSource routing = routing(database("replica"));
+
+        assertEquals("replica", servedBy(routing, true));
+        assertEquals("primary", servedBy(routing, false));
+    }
+
+    @Test
+    void readsAfterAWriteInTheSameRequestUseThePrimary() {
+        DataSource routing = routing(database("replica"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertEquals("replica", servedBy(routing, true));
+        assertEquals("primary", servedBy(routing, false));
+        assertEquals("primary", servedBy(routing, true));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertEquals("replica", servedBy(routing, true));
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToThePrimary() {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+
+        DataSource routing = routing(missing);
+
+        assertEquals("primary", servedBy(routing, true));
+        assertEquals("primary", servedBy(routing, true));
+    }
+
+    @Test
+    void replicasTakeTurns() {
+        DataSource routing = new ReadWriteRoutingDataSource(primary, new ReplicaRoutingDataSource(
+                primary, List.of(database("replica-1"), database("replica-2")), Duration.ofMinutes(1)));
+
+        assertEquals("replica-1", servedBy(routing, true));
+        assertEquals("replica-2", servedBy(routing, true));
+        assertEquals("replica-1", servedBy(routing, true));
+    }
+
+    private DataSource routing(DataSource replica) {
+        return new ReadWriteRoutingDataSource(primary,
+                new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofMinutes(1)));
+    }
+
+    private static String servedBy(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO whoami VALUES (?)", name);
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,138 @@
+package dev.chiedo.bookapi.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookImportStatusDto;
+import dev.chiedo.bookapi.service.BookService;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BookImporterTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    private Path directory;
+
+    private BookImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        // chunks of a couple of lines and small batches, so both are split many times over
+        importer = new BookImporter(bookService, validator, objectMapper, DataSize.ofBytes(200), 3, 2, 7,
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    void csvLinesAreImportedOrReportedByLineNumber() throws IOException {
+        StringBuilder csv = new StringBuilder("﻿isbn,title,author,description\r\n");
+        Set<Long> invalidLines = new HashSet<>();
+        String duplicate = TestBooks.nextIsbn();
+        long line = 1;
+
+        for (int i = 0; i < 100; i++) {
+            line++;
+            if (i % 17 == 5) {
+                csv.append(TestBooks.nextIsbn()).append(",,Author,Missing title\r\n");
+                invalidLines.add(line);
+            } else if (i % 23 == 7) {
+                csv.append(TestBooks.nextIsbn()).append(",\"Unterminated,Author,Quote\r\n");
+                invalidLines.add(line);
+            } else if (i == 40) {
+                csv.append("\r\n");
+            } else {
+                String isbn = i == 60 || i == 61 ? duplicate : TestBooks.nextIsbn();
+                csv.append(isbn).append(",\"Title, ").append(i).append("\",Author,\"Said \"\"hi\"\"\"\r\n");
+            }
+        }
+        Path file = Files.writeString(directory.resolve("books.csv"), csv, StandardCharsets.UTF_8);
+
+        BookImportStatusDto status = run(file, BookImportFormat.CSV);
+
+        Set<Long> failedLines = status.errors().stream()
+                .map(BookImportStatusDto.LineError::line)
+                .collect(Collectors.toSet());
+        Set<Long> duplicateLines = new HashSet<>(failedLines);
+        duplicateLines.removeAll(invalidLines);
+
+        assertEquals(BookImportStatusDto.State.COMPLETED, status.state(), status::failure);
+        assertEquals(Files.size(file), status.bytesParsed());
+        assertEquals(99, status.lines());
+        assertTrue(failedLines.containsAll(invalidLines));
+        assertTrue(duplicateLines.equals(Set.of(62L)) || duplicateLines.equals(Set.of(63L)),
+                () -> "one of the two lines with the same ISBN fails, not " + duplicateLines);
+        assertEquals(99 - invalidLines.size() - 1, status.imported());
+        assertEquals(status.lines() - status.imported(), status.failed());
+
+        BookDto imported = bookService.findByIsbn(duplicate).orElseThrow();
+        assertEquals("Said \"hi\"", imported.getDescription());
+    }
+
+    @Test
+    void ndjsonLinesThatCannotBeReadAreReported() throws IOException {
+        String ndjson = "{\"title\":\"One\",\"author\":\"Author\",\"isbn\":\"" + TestBooks.nextIsbn() + "\",\"description\":\"D\"}\n"
+                + "{\"title\":\"Two\",\"author\":\n"
+                + "{\"title\":\"Three\",\"author\":\"Author\",\"isbn\":\"" + TestBooks.nextIsbn() + "\",\"description\":\"D\"}\n"
+                + "{\"title\":\"Four\",\"author\":\"Author\",\"description\":\"D\"}\n"
+                + "{\"title\":\"Five\",\"author\":\"Author\",\"isbn\":\"" + TestBooks.nextIsbn() + "\"}";
+        Path file = Files.writeString(directory.resolve("books.ndjson"), ndjson, StandardCharsets.UTF_8);
+
+        BookImportStatusDto status = run(file, BookImportFormat.NDJSON);
+
+        assertEquals(BookImportStatusDto.State.COMPLETED, status.state(), status::failure);
+        assertEquals(5, status.lines());
+        assertEquals(2, status.imported());
+        assertEquals(Set.of(2L, 4L, 5L), status.errors().stream()
+                .map(BookImportStatusDto.LineError::line)
+                .collect(Collectors.toSet()));
+        assertTrue(status.errors().stream().anyMatch(error -> error.message().equals("isbn: must not be empty")));
+        assertTrue(status.errors().stream().anyMatch(error -> error.message().startsWith("description: ")));
+    }
+
+    @Test
+    void overlongIsbnIsNotReportedAsADuplicate() throws IOException {
+        String ndjson = "{\"title\":\"Fits\",\"author\":\"Author\",\"isbn\":\"" + TestBooks.nextIsbn() + "\",\"description\":\"D\"}\n"
+                + "{\"title\":\"Too long\",\"author\":\"Author\",\"isbn\":\"" + "9".repeat(60) + "\",\"description\":\"D\"}";
+        Path file = Files.writeString(directory.resolve("long.ndjson"), ndjson, StandardCharsets.UTF_8);
+
+        BookImportStatusDto status = run(file, BookImportFormat.NDJSON);
+
+        assertEquals(BookImportStatusDto.State.COMPLETED, status.state(), status::failure);
+        assertEquals(1, status.imported());
+        assertEquals(1, status.errors().size());
+        assertEquals(2L, status.errors().get(0).line());
+        assertEquals("a value is longer than its column allows", status.errors().get(0).message());
+    }
+
+    private BookImportStatusDto run(Path file, BookImportFormat format) {
+        BookImportJob job = new BookImportJob(format, 100);
+        importer.importFile(file, job);
+        return job.status();
+    }
+}
@@ -0,0 +1,154 @@
+package dev.chiedo.bookapi.isbn;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class IsbnLookupTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private IsbnFilter isbnFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void isbn10IsConvertedToIsbn13() {
+        assertEquals("9780306406157", IsbnNormalizer.normalize("0-306-40615-2"));
+        assertEquals("9780306406157", IsbnNormalizer.normalize("978-0-306-40615-7"));
+        assertEquals("9780804429573", IsbnNormalizer.normalize("0-8044-2957-X"));
+        assertEquals("9780804429573", IsbnNormalizer.normalize("080442957x"));
+        assertEquals("9780306406157", IsbnNormalizer.normalize("ISBN 0 306 40615 2"));
+    }
+
+    @Test
+    void tenCharactersWithAWrongCheckDigitAreNotAnIsbn10() {
+        assertEquals("0306406153", IsbnNormalizer.normalize("0-306-40615-3"));
+        assertEquals("080442957X0", IsbnNormalizer.normalize("080442957X0"));
+        assertEquals("03064X6152", IsbnNormalizer.normalize("0-306-4X615-2"));
+        assertEquals("178216", IsbnNormalizer.normalize("178-2-16"));
+    }
+
+    @Test
+    void databaseNormalizesLikeTheJavaCode() {
+        Random random = new Random(9);
+        Map<String, String> expected = new HashMap<>();
+        Set<String> normalized = new HashSet<>();
+        while (expected.size() < 500) {
+            String body = "5" + String.format("%08d", random.nextInt(100_000_000));
+            String isbn = switch (random.nextInt(5)) {
+                case 0 -> isbn10(body);
+                case 1 -> body + random.nextInt(10);
+                case 2 -> hyphenate(isbn10(body).toLowerCase());
+                case 3 -> "978-" + body + random.nextInt(10);
+                default -> body.substring(0, 4) + "X" + body.substring(5) + "X";
+            };
+            if (normalized.add(IsbnNormalizer.normalize(isbn))) {
+                expected.put(isbn, IsbnNormalizer.normalize(isbn));
+            }
+        }
+
+        Map<String, String> stored = new HashMap<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Object[]> rows = new ArrayList<>();
+            expected.keySet().forEach(isbn -> rows.add(new Object[]{"Normalized", "Author", "Description", isbn}));
+            jdbcTemplate.batchUpdate("INSERT INTO books (title, author, description, isbn) VALUES (?, ?, ?, ?)", rows);
+            jdbcTemplate.query("SELECT isbn, isbn_normalized FROM books WHERE title = 'Normalized'",
+                    rs -> {
+                        stored.put(rs.getString(1), rs.getString(2));
+                    });
+            status.setRollbackOnly();
+        });
+
+        assertEquals(expected, stored);
+    }
+
+    @Test
+    void bothFormsFindTheBookAndAWrongCheckDigitDoesNot() {
+        String body = TestBooks.nextIsbn().substring(4);
+        String isbn10 = isbn10(body);
+        BookDto book = TestBooks.book("Found by ISBN", "Author");
+        book.setIsbn(hyphenate(isbn10));
+        bookService.save(book);
+
+        String isbn13 = IsbnNormalizer.normalize(isbn10);
+        assertEquals(book.getBookId(), bookService.findByIsbn(isbn13).orElseThrow().getBookId());
+        assertEquals(book.getBookId(), bookService.findByIsbn(isbn10).orElseThrow().getBookId());
+
+        char wrong = isbn10.charAt(9) == '0' ? '1' : '0';
+        assertTrue(bookService.findByIsbn(body + wrong).isEmpty());
+    }
+
+    @Test
+    void filterHasNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        Random random = new Random(13);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String isbn = "978" + String.format("%010d", random.nextLong(10_000_000_000L));
+            filter.add(isbn);
+            added.add(isbn);
+        }
+
+        assertTrue(added.stream().allMatch(filter::mightContain));
+
+        long falsePositives = random.longs(10_000, 0, 10_000_000_000L)
+                .filter(number -> filter.mightContain("979" + String.format("%010d", number)))
+                .count();
+        assertTrue(falsePositives < 200, () -> falsePositives + " false positives in 10000");
+        assertTrue(filter.expectedFalsePositiveProbability() < 0.02);
+    }
+
+    @Test
+    void writtenIsbnsPassTheFilterBeforeAndAfterARebuild() {
+        List<BookDto> books = List.of(TestBooks.book("Filtered", "Author"), TestBooks.book("Filtered", "Author"));
+        bookService.saveAll(books);
+
+        for (BookDto book : books) {
+            assertTrue(isbnFilter.mightContain(IsbnNormalizer.normalize(book.getIsbn())));
+        }
+
+        isbnFilter.rebuild();
+        for (BookDto book : books) {
+            assertTrue(isbnFilter.mightContain(IsbnNormalizer.normalize(book.getIsbn())));
+        }
+    }
+
+    // the nine digits followed by their ISBN-10 check digit
+    private static String isbn10(String body) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (10 - i) * (body.charAt(i) - '0');
+        }
+        int check = (11 - sum % 11) % 11;
+        return body + (check == 10 ? "X" : String.valueOf(check));
+    }
+
+    private static String hyphenate(String isbn10) {
+        return isbn10.charAt(0) + "-" + isbn10.substring(1, 4) + "-" + isbn10.substring(4, 9) + "-" + isbn10.charAt(9);
+    }
+}
@@ -0,0 +1,47 @@
+package dev.chiedo.bookapi.mapper;
+
+import dev.chiedo.bookapi.config.MapperConfig;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.entity.BookEntity;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookMapperEquivalenceTest {
+
+    private final IMapper<BookEntity, BookDto> modelMapperBased = new BookMapperImpl(new MapperConfig().modelMapper());
+
+    private final IMapper<BookEntity, BookDto> direct = new DirectBookMapperImpl();
+
+    @Test
+    void mapToProducesIdenticalDtos() {
+        BookEntity entity = new BookEntity(7L, "Animal Farm", "George Orwell", "A political satire", "422-5-19", 3L);
+
+        assertThat(direct.mapTo(entity))
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapperBased.mapTo(entity));
+    }
+
+    @Test
+    void mapFromProducesIdenticalEntities() {
+        BookDto dto = new BookDto(7L, "Animal Farm", "George Orwell", "A political satire", "422-5-19", 3L);
+
+        assertThat(direct.mapFrom(dto))
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapperBased.mapFrom(dto));
+    }
+
+    @Test
+    void unsetFieldsStayUnset() {
+        BookDto dto = new BookDto(null, "Animal Farm", "George Orwell", null, "422-5-19", null);
+
+        BookEntity entity = direct.mapFrom(dto);
+
+        assertThat(entity)
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapperBased.mapFrom(dto));
+        assertThat(direct.mapTo(entity))
+                .usingRecursiveComparison()
+                .isEqualTo(modelMapperBased.mapTo(entity));
+    }
+}
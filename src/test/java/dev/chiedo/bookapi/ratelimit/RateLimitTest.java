@@ -0,0 +1,165 @@
+package dev.chiedo.bookapi.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitTest {
+
+    @Test
+    void bucketAllowsTheBurstThenTheRate() {
+        // one token a minute, so none comes back while the test runs
+        TokenBucket bucket = new TokenBucket(1 / 60.0, 3);
+
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+
+        long wait = bucket.tryTake();
+        assertTrue(wait > Duration.ofSeconds(50).toNanos() && wait <= Duration.ofSeconds(60).toNanos(),
+                () -> "waits about a minute, not " + wait);
+    }
+
+    @Test
+    void slowRequestsShrinkTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, Duration.ofMillis(100), 0.5);
+
+        assertTrue(limit.tryAcquire());
+        limit.release(Duration.ofMillis(500).toNanos());
+        assertEquals(5, limit.limit());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire(), "requests over the limit are refused, not queued");
+    }
+
+    @Test
+    void fastRequestsGrowTheLimitOnlyWhileItIsInUse() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 100, Duration.ofMillis(100), 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(Duration.ofMillis(1).toNanos());
+        }
+        assertEquals(4, limit.limit(), "one request at a time never comes near the limit");
+
+        for (int round = 0; round < 10; round++) {
+            int held = limit.limit();
+            for (int i = 0; i < held; i++) {
+                assertTrue(limit.tryAcquire());
+            }
+            for (int i = 0; i < held; i++) {
+                limit.release(Duration.ofMillis(1).toNanos());
+            }
+        }
+        assertTrue(limit.limit() > 4, "a saturated limit grows");
+    }
+
+    @Test
+    void failedAuthenticationsAreRefusedBeforeTheCheck() throws Exception {
+        AuthenticationFailureLimitFilter filter = new AuthenticationFailureLimitFilter(properties(), new SimpleMeterRegistry());
+        AtomicInteger checked = new AtomicInteger();
+        FilterChain failing = (request, response) -> {
+            checked.incrementAndGet();
+            ((MockHttpServletResponse) response).setStatus(401);
+        };
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(401, status(filter, request("/api/v1/books/1", "Basic Z3Vlc3M6d3Jvbmc="), failing));
+        }
+        assertEquals(429, status(filter, request("/api/v1/books/1", "Basic Z3Vlc3M6d3Jvbmc="), failing));
+        assertEquals(3, checked.get(), "the fourth guess is not checked");
+
+        assertEquals(200, status(filter, request("/api/v1/books", null), (request, response) -> {
+        }), "requests without credentials are not limited");
+    }
+
+    @Test
+    void guessesInFlightAreCountedAndAcceptedCredentialsAreNot() throws Exception {
+        AuthenticationFailureLimitFilter filter = new AuthenticationFailureLimitFilter(properties(), new SimpleMeterRegistry());
+        FilterChain accepting = (request, response) -> {
+        };
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, status(filter, request("/api/v1/books/1", "Basic dXNlcjpyaWdodA=="), accepting));
+        }
+
+        // each guess is still being checked when the next one arrives
+        int[] statuses = new int[4];
+        FilterChain[] chains = new FilterChain[4];
+        for (int i = 0; i < 4; i++) {
+            int guess = i;
+            chains[guess] = (request, response) -> {
+                if (guess < 3) {
+                    try {
+                        statuses[guess + 1] = status(filter, request("/api/v1/books/1", "Basic Z3Vlc3M6d3Jvbmc="),
+                                chains[guess + 1]);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                ((MockHttpServletResponse) response).setStatus(401);
+            };
+        }
+        statuses[0] = status(filter, request("/api/v1/books/1", "Basic Z3Vlc3M6d3Jvbmc="), chains[0]);
+
+        assertEquals(List.of(401, 401, 401, 429), List.of(statuses[0], statuses[1], statuses[2], statuses[3]));
+    }
+
+    @Test
+    void excludedRoutesAreLeftOutOfTheConcurrencyLimit() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(properties(), new SimpleMeterRegistry());
+        int[] nested = new int[2];
+
+        // while the one request the limit allows is in flight
+        assertEquals(200, status(filter, request("/api/v1/books/1", null), (request, response) -> {
+            try {
+                nested[0] = status(filter, request("/api/v1/books/batch", null), (inner, innerResponse) -> {
+                });
+                nested[1] = status(filter, request("/api/v1/books/2", null), (inner, innerResponse) -> {
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        assertEquals(200, nested[0]);
+        assertEquals(503, nested[1]);
+    }
+
+    private static RateLimitProperties properties() {
+        return new RateLimitProperties(true, new RateLimitProperties.Limit(50, 100), Map.of(), 1000,
+                Duration.ofMinutes(10), new RateLimitProperties.AuthenticationFailures(1 / 60.0, 3),
+                new RateLimitProperties.Adaptive(true, 1, 1, 1, Duration.ofMinutes(1), 0.9,
+                        List.of("/api/v1/books/batch")));
+    }
+
+    private static MockHttpServletRequest request(String path, String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+
+    private static int status(Filter filter, MockHttpServletRequest request, FilterChain chain)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,122 @@
+package dev.chiedo.bookapi.search;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTest {
+
+    @Test
+    void textIsFoldedAndSplitIntoTerms() {
+        assertEquals(List.of("fall", "house", "usher", "2nd", "ed"),
+                TextAnalyzer.tokenize("The Fall of the House of Úsher — 2nd ed."));
+        assertEquals(List.of("cafe", "creme", "brulee"), TextAnalyzer.tokenize("CAFÉ crème-brûlée"));
+        assertEquals("fine", TextAnalyzer.normalize("ﬁne"), "compatibility forms are decomposed");
+        assertEquals(List.of(), TextAnalyzer.tokenize("The and of a"));
+        assertEquals(List.of(), TextAnalyzer.tokenize(""));
+        assertEquals(List.of(), TextAnalyzer.tokenize(null));
+    }
+
+    @Test
+    void titleMatchesOutrankAuthorAndDescriptionMatches() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index(book(1, "Gardens", "Someone", "A book about whales"));
+        index.index(book(2, "Whales", "Someone", "A book about gardens"));
+        index.index(book(3, "Oceans", "Whales", "A book about oceans"));
+
+        assertEquals(List.of(2L, 3L, 1L), bookIds(index.search("whales", 0, 10)));
+    }
+
+    @Test
+    void rarerTermsAndShorterFieldsWeighMore() {
+        BookSearchIndex index = new BookSearchIndex();
+        // "sea" is in every book, "storm" only in the first
+        index.index(book(1, "Sea storm", "Author", "Description"));
+        index.index(book(2, "Sea sea", "Author", "Description"));
+        index.index(book(3, "Sea", "Author", "Description"));
+        index.index(book(4, "Sea and a very long title about many other things", "Author", "Description"));
+
+        SearchResult result = index.search("sea storm", 0, 10);
+
+        assertEquals(4, result.total());
+        assertEquals(1L, result.hits().get(0).bookId());
+        assertEquals(4L, result.hits().get(3).bookId(), "the longest title matches least");
+        assertTrue(score(index.search("sea", 0, 10), 2) > score(index.search("sea", 0, 10), 3),
+                "a term found twice scores more than once");
+    }
+
+    @Test
+    void equalScoresAreOrderedByBookIdAndPaged() {
+        BookSearchIndex index = new BookSearchIndex();
+        for (long bookId : new long[]{5, 3, 9, 1, 7}) {
+            index.index(book(bookId, "Same title", "Author", "Description"));
+        }
+
+        assertEquals(List.of(1L, 3L), bookIds(index.search("same", 0, 2)));
+        assertEquals(List.of(5L, 7L), bookIds(index.search("same", 1, 2)));
+        assertEquals(List.of(9L), bookIds(index.search("same", 2, 2)));
+        assertEquals(5, index.search("same", 2, 2).total());
+    }
+
+    @Test
+    void compactionKeepsLiveBooksSearchable() {
+        InvertedIndex index = new InvertedIndex();
+        for (long bookId = 1; bookId <= 100; bookId++) {
+            index.add(bookId, "Kept " + bookId, "Author", "Description");
+        }
+        for (int round = 0; round < 100; round++) {
+            index.add(7, "Changed r" + round, "Author", "Description");
+        }
+        for (long bookId = 11; bookId <= 20; bookId++) {
+            index.remove(bookId);
+        }
+
+        index.compact();
+
+        assertEquals(90, index.size());
+        assertEquals(90, index.documents(), "live books are renumbered from 0");
+        assertEquals(List.of(7L), search(index, "r99"));
+        assertEquals(List.of(), search(index, "r98"));
+        assertEquals(List.of(21L), search(index, "21"));
+        assertEquals(89, search(index, "kept").size());
+
+        index.add(101, "Kept 101", "Author", "Description");
+        assertEquals(List.of(101L), search(index, "101"));
+    }
+
+    @Test
+    void repeatedUpdatesDoNotGrowTheIndex() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "Other", "Author", "Description");
+
+        for (int round = 0; round < 10_000; round++) {
+            index.add(2, "Updated " + round, "Author", "Description");
+            if (index.needsCompaction()) {
+                index.compact();
+            }
+        }
+
+        assertEquals(2, index.size());
+        assertTrue(index.documents() < 2 + 2048, () -> index.documents() + " ordinals for 2 books");
+    }
+
+    private static BookDto book(long bookId, String title, String author, String description) {
+        return new BookDto(bookId, title, author, description, "isbn-" + bookId, 0L);
+    }
+
+    private static List<Long> search(InvertedIndex index, String query) {
+        return bookIds(index.search(TextAnalyzer.tokenize(query), 0, 1000, new ScoreAccumulator()));
+    }
+
+    private static List<Long> bookIds(SearchResult result) {
+        return result.hits().stream().map(SearchHit::bookId).toList();
+    }
+
+    private static double score(SearchResult result, long bookId) {
+        return result.hits().stream().filter(hit -> hit.bookId() == bookId).findFirst().orElseThrow().score();
+    }
+}
@@ -0,0 +1,88 @@
+package dev.chiedo.bookapi.service;
+
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.projection.BookField;
+import dev.chiedo.bookapi.projection.BookProjection;
+import dev.chiedo.bookapi.projection.BookProjectionPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Projected reads select only the columns asked for (plus the id and version) and page
+ * through the catalog in the same order as full reads.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "dev.chiedo.bookapi.service.BookWriteStatementCountTest$RecordingInspector",
+        "books.cache.enabled=false"
+})
+class BookProjectionTest {
+
+    private static final Set<BookField> LIST_FIELDS = Set.of(BookField.BOOK_ID, BookField.AUTHOR);
+
+    @Autowired
+    private BookService bookService;
+
+    @BeforeEach
+    void clearStatements() {
+        BookWriteStatementCountTest.RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void pageReadsOnlyTheRequestedColumns() {
+        BookProjectionPage page = bookService.findPage(BookSort.ID, null, 2, LIST_FIELDS);
+
+        List<String> statements = BookWriteStatementCountTest.RecordingInspector.STATEMENTS;
+        assertEquals(1, statements.size(), statements::toString);
+        assertFalse(statements.get(0).contains("description"), statements.get(0));
+        assertFalse(statements.get(0).contains("isbn"), statements.get(0));
+        assertEquals(Set.of("bookId", "author"), page.books().get(0).fields().keySet());
+    }
+
+    @Test
+    void projectedPagesFollowTheFullOrder() {
+        for (BookSort sort : BookSort.values()) {
+            List<Object> projected = new ArrayList<>();
+            // small pages, so the cursor is used many times over
+            BookCursor cursor = null;
+            do {
+                BookProjectionPage page = bookService.findPage(sort, cursor, 3, LIST_FIELDS);
+                page.books().forEach(book -> projected.add(book.fields().get("bookId")));
+                cursor = page.next();
+            } while (cursor != null);
+
+            List<Object> full = bookService.findPage(sort, null, 1000).books().stream()
+                    .map(book -> (Object) book.getBookId())
+                    .toList();
+            assertEquals(full, projected, sort::name);
+        }
+    }
+
+    @Test
+    void bookReadsOnlyTheRequestedColumns() {
+        BookDto first = bookService.findPage(BookSort.ID, null, 1).books().get(0);
+        clearStatements();
+
+        Optional<BookProjection> book = bookService.findById(first.getBookId(), Set.of(BookField.TITLE));
+
+        assertTrue(book.isPresent());
+        assertEquals(Map.of("title", first.getTitle()), book.get().fields());
+        assertEquals(first.getVersion(), book.get().version());
+        assertFalse(BookWriteStatementCountTest.RecordingInspector.STATEMENTS.get(0).contains("description"));
+        assertTrue(bookService.findById(Long.MAX_VALUE, Set.of(BookField.TITLE)).isEmpty());
+    }
+}
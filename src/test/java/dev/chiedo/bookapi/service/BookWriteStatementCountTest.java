@@ -0,0 +1,111 @@
+package dev.chiedo.bookapi.service;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-book writes reach the books table with one statement each. The catalog
+ * version bump is issued through JDBC directly and is not counted here.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "dev.chiedo.bookapi.service.BookWriteStatementCountTest$RecordingInspector",
+        "books.cache.enabled=false"
+})
+class BookWriteStatementCountTest {
+
+    @Autowired
+    private BookService bookService;
+
+    private long bookId;
+
+    @BeforeEach
+    void createBook() {
+        BookDto book = new BookDto(null, "Counting", "Statements", "One per call", TestBooks.nextIsbn(), null);
+        bookService.save(book);
+        bookId = book.getBookId();
+
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void patchIsOneStatement() {
+        Optional<BookDto> patched = bookService.patch(bookId, new BookPatchDto("Counted", null, null, null), 0L);
+
+        assertEquals(1, RecordingInspector.STATEMENTS.size(), RecordingInspector.STATEMENTS::toString);
+        assertTrue(patched.isPresent());
+        assertEquals("Counted", patched.get().getTitle());
+        assertEquals("Statements", patched.get().getAuthor());
+        assertEquals(1L, patched.get().getVersion());
+        String statement = RecordingInspector.STATEMENTS.get(0);
+        assertFalse(statement.substring(statement.indexOf(" SET ")).contains("author"), "only changed columns are written");
+    }
+
+    @Test
+    void updateIsOneStatement() {
+        BookDto book = new BookDto(bookId, "Replaced", "Author", "Description", TestBooks.nextIsbn(), null);
+
+        assertTrue(bookService.update(bookId, book));
+        assertEquals(1, RecordingInspector.STATEMENTS.size(), RecordingInspector.STATEMENTS::toString);
+        assertEquals(Optional.of(1L), bookService.findVersion(bookId));
+    }
+
+    @Test
+    void updateDoesNotKeepFieldsLeftOut() {
+        // the description is required by the table, so replacing it with nothing fails
+        BookDto book = new BookDto(bookId, "Replaced", "Author", null, TestBooks.nextIsbn(), null);
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookService.update(bookId, book));
+        assertEquals("Counting", bookService.findById(bookId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void deleteIsOneStatement() {
+        assertTrue(bookService.delete(bookId, null));
+        assertEquals(1, RecordingInspector.STATEMENTS.size(), RecordingInspector.STATEMENTS::toString);
+        assertTrue(bookService.findById(bookId).isEmpty());
+    }
+
+    @Test
+    void missingBookIsOneStatement() {
+        assertFalse(bookService.delete(Long.MAX_VALUE, null));
+        assertTrue(bookService.patch(Long.MAX_VALUE, new BookPatchDto("Nobody", null, null, null), null).isEmpty());
+        assertEquals(2, RecordingInspector.STATEMENTS.size(), RecordingInspector.STATEMENTS::toString);
+    }
+
+    @Test
+    void staleVersionIsRefused() {
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> bookService.patch(bookId, new BookPatchDto("Stale", null, null, null), 7L));
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.delete(bookId, 7L));
+        assertEquals(Optional.of(0L), bookService.findVersion(bookId));
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.chiedo.bookapi.service;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class CachingBookServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cachedBookIsEvictedOnceTheWriteCommits() {
+        BookDto book = TestBooks.book("Cached", "Cache Writer");
+        bookService.save(book);
+        bookService.findById(book.getBookId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.patch(book.getBookId(), new BookPatchDto("Recached", null, null, null), null);
+            assertNotNull(books().get(book.getBookId()), "kept until the commit");
+        });
+
+        assertNull(books().get(book.getBookId()));
+        assertEquals("Recached", bookService.findById(book.getBookId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void cachedBookIsKeptWhenTheWriteRollsBack() {
+        BookDto book = TestBooks.book("Cached", "Cache Writer");
+        bookService.save(book);
+        bookService.findById(book.getBookId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.patch(book.getBookId(), new BookPatchDto("Rolled back", null, null, null), null);
+            status.setRollbackOnly();
+        });
+
+        assertNotNull(books().get(book.getBookId()));
+        assertEquals("Cached", bookService.findById(book.getBookId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void cachedMissIsEvictedOnceABookWithTheTitleCommits() {
+        String title = "Not yet cached " + TestBooks.nextIsbn();
+        assertNull(bookService.findByTitle(title));
+        assertNull(booksByTitle().get(title).get(), "the miss is cached");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.save(TestBooks.book(title, "Cache Writer"));
+            status.setRollbackOnly();
+        });
+
+        assertNotNull(booksByTitle().get(title), "a rolled back save leaves the miss cached");
+        assertNull(bookService.findByTitle(title));
+
+        bookService.save(TestBooks.book(title, "Cache Writer"));
+
+        assertNull(booksByTitle().get(title));
+        assertEquals(title, bookService.findByTitle(title).getTitle());
+    }
+
+    private Cache books() {
+        return cacheManager.getCache(CachingBookService.BOOKS_CACHE);
+    }
+
+    private Cache booksByTitle() {
+        return cacheManager.getCache(CachingBookService.BOOKS_BY_TITLE_CACHE);
+    }
+}
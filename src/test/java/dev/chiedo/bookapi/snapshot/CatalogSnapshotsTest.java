@@ -0,0 +1,137 @@
+package dev.chiedo.bookapi.snapshot;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.pagination.BookCursor;
+import dev.chiedo.bookapi.pagination.BookPage;
+import dev.chiedo.bookapi.pagination.BookSort;
+import dev.chiedo.bookapi.service.BookService;
+import dev.chiedo.bookapi.service.BookServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "books.snapshot.enabled=true",
+        "books.snapshot.change-batch-size=2"
+})
+class CatalogSnapshotsTest {
+
+    @Autowired
+    private CatalogSnapshots catalogSnapshots;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookServiceImpl database;
+
+    @Test
+    void pagesMatchTheDatabaseAfterEveryKindOfWrite() {
+        catalogSnapshots.refresh();
+        assertSameAsDatabase();
+
+        TestBooks.writeEveryWay(bookService, "Snapshot b", "Snapshot Writer", "Snapshot Other");
+
+        // not yet refreshed: the page comes from the database
+        assertEquals(rows(database.findPage(BookSort.TITLE, null, 1000).books()),
+                rows(bookService.findPage(BookSort.TITLE, null, 1000).books()));
+
+        catalogSnapshots.refresh();
+        assertSameAsDatabase();
+        assertEquals(bookService.catalogVersion(), catalogSnapshots.current().orElseThrow().catalogVersion());
+    }
+
+    @Test
+    void authorsAreStoredOnceEach() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(0);
+        for (long id = 1; id <= 100; id++) {
+            builder.add(id, "Title " + id, new String(id % 2 == 0 ? "Even" : "Odd"), "Description", "isbn-" + id, 0);
+        }
+        CatalogSnapshot snapshot = builder.build(1, 1);
+
+        assertEquals(2, snapshot.authorCount());
+        List<BookDto> books = snapshot.page(BookSort.ID, null, 4).books();
+        assertSame(books.get(0).getAuthor(), books.get(2).getAuthor());
+        assertTrue(snapshot.footprintBytes() > 100 * 3 * 24, () -> snapshot.footprintBytes() + " bytes");
+    }
+
+    @Test
+    void appliedChangesKeepTheTitleOrderOfAFullBuild() {
+        Random random = new Random(3);
+        TreeMap<Long, BookDto> books = new TreeMap<>();
+        for (long id = 1; id <= 200; id++) {
+            books.put(id, new BookDto(id, "Title " + random.nextInt(50), "Author", "Description", "isbn-" + id, 0L));
+        }
+        CatalogSnapshot snapshot = build(books.values());
+
+        for (int round = 0; round < 20; round++) {
+            TreeMap<Long, BookDto> changes = new TreeMap<>();
+            for (int i = 0; i < 10; i++) {
+                long id = 1 + random.nextInt(220 + round * 5);
+                BookDto book = random.nextInt(4) == 0
+                        ? null
+                        : new BookDto(id, "Title " + random.nextInt(50), "Author", "Description", "isbn-" + id, 1L);
+                changes.put(id, book);
+            }
+            changes.forEach((id, book) -> {
+                if (book == null) {
+                    books.remove(id);
+                } else {
+                    books.put(id, book);
+                }
+            });
+
+            snapshot = snapshot.apply(changes, round + 2, round + 2);
+
+            CatalogSnapshot built = build(books.values());
+            assertEquals(rows(built.page(BookSort.TITLE, null, 1000).books()),
+                    rows(snapshot.page(BookSort.TITLE, null, 1000).books()), "round " + round);
+        }
+    }
+
+    private static CatalogSnapshot build(Collection<BookDto> books) {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(books.size());
+        books.forEach(builder::add);
+        return builder.build(1, 1);
+    }
+
+    private void assertSameAsDatabase() {
+        for (BookSort sort : BookSort.values()) {
+            List<BookDto> served = new ArrayList<>();
+            List<BookDto> read = new ArrayList<>();
+            // small pages, so the cursor is used many times over
+            BookCursor cursor = null;
+            do {
+                BookPage page = catalogSnapshots.page(sort, cursor, 3, bookService.catalogVersion()).orElseThrow();
+                served.addAll(page.books());
+                cursor = page.next();
+            } while (cursor != null);
+            cursor = null;
+            do {
+                BookPage page = database.findPage(sort, cursor, 3);
+                read.addAll(page.books());
+                cursor = page.next();
+            } while (cursor != null);
+
+            assertEquals(rows(read), rows(served), sort::name);
+        }
+    }
+
+    private static List<List<Object>> rows(List<BookDto> books) {
+        return books.stream()
+                .map(book -> List.<Object>of(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                        book.getIsbn(), book.getVersion()))
+                .toList();
+    }
+}
@@ -0,0 +1,79 @@
+package dev.chiedo.bookapi.stats;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.AuthorStatsCheckDto;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookStatsDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AuthorStatsTest {
+
+    @Autowired
+    private AuthorStats authorStats;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsFollowEveryKindOfWrite() {
+        long booksBefore = authorStats.stats(0).books();
+
+        BookDto left = TestBooks.writeEveryWay(bookService, "Counted", "Stats Writer", "Stats Other");
+
+        assertEquals("Stats Other", left.getAuthor());
+        assertEquals(0, count("Stats Writer"));
+        assertEquals(1, count("Stats Other"));
+        assertEquals(booksBefore + 1, authorStats.stats(0).books());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM author_stats WHERE author = 'Stats Writer'", Long.class),
+                "authors without books have no row");
+        assertTrue(authorStats.verify().mismatches().isEmpty());
+    }
+
+    @Test
+    void rebuildRepairsCountsThatDrifted() {
+        bookService.save(TestBooks.book("Counted", "Stats Drift"));
+        jdbcTemplate.update("UPDATE author_stats SET books = books + 5 WHERE author = 'Stats Drift'");
+
+        AuthorStatsCheckDto check = authorStats.verify();
+        assertEquals(List.of(new AuthorStatsCheckDto.Mismatch("Stats Drift", 1, 6)), check.mismatches());
+        assertFalse(check.rebuilt());
+
+        AuthorStatsCheckDto rebuild = authorStats.rebuild();
+        assertEquals(check.mismatches(), rebuild.mismatches());
+        assertTrue(authorStats.verify().mismatches().isEmpty());
+        assertEquals(1, count("Stats Drift"));
+    }
+
+    @Test
+    void topAuthorsHaveTheMostBooks() {
+        List<BookStatsDto.AuthorCount> top = authorStats.stats(3).topAuthors();
+
+        assertEquals(3, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).books() >= top.get(i).books());
+        }
+    }
+
+    private long count(String author) {
+        return authorStats.authors(null, 1000).stream()
+                .filter(authorCount -> authorCount.author().equals(author))
+                .mapToLong(BookStatsDto.AuthorCount::books)
+                .findFirst()
+                .orElse(0);
+    }
+}
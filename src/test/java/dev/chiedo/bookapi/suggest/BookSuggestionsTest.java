@@ -0,0 +1,89 @@
+package dev.chiedo.bookapi.suggest;
+
+import dev.chiedo.bookapi.TestBooks;
+import dev.chiedo.bookapi.model.dto.BookDto;
+import dev.chiedo.bookapi.model.dto.BookPatchDto;
+import dev.chiedo.bookapi.model.dto.BookSuggestionDto;
+import dev.chiedo.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BookSuggestionsTest {
+
+    @Autowired
+    private BookSuggestions bookSuggestions;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void suggestionsFollowWritesBeforeAndAfterARebuild() {
+        bookSuggestions.rebuild();
+
+        BookDto first = TestBooks.book("Qwzx Tales", "Qwzx Álvarez");
+        bookService.save(first);
+        bookService.saveAll(List.of(TestBooks.book("Qwzx Tales", "Qwzx Álvarez"), TestBooks.book("Qwzx Tales", "Qwzx Other"),
+                TestBooks.book("qwzx   tales", "Qwzx Álvarez"), TestBooks.book("Qwzx Poems", "Qwzx Other")));
+
+        List<BookSuggestionDto> expected = List.of(
+                new BookSuggestionDto("Qwzx Tales", BookSuggestionDto.Type.TITLE, 4),
+                new BookSuggestionDto("Qwzx Álvarez", BookSuggestionDto.Type.AUTHOR, 3),
+                new BookSuggestionDto("Qwzx Other", BookSuggestionDto.Type.AUTHOR, 2),
+                new BookSuggestionDto("Qwzx Poems", BookSuggestionDto.Type.TITLE, 1));
+        assertEquals(expected, bookSuggestions.suggest("QWZX", 10));
+
+        // diacritics, case and whitespace are ignored
+        assertEquals(expected.subList(1, 2), bookSuggestions.suggest("qwzx  alv", 10));
+
+        bookService.patch(first.getBookId(), new BookPatchDto("Qwzx Poems", null, null, null), null);
+        bookService.delete(first.getBookId(), null);
+
+        List<BookSuggestionDto> afterWrites = bookSuggestions.suggest("qwzx", 3);
+        assertEquals(List.of(
+                new BookSuggestionDto("Qwzx Tales", BookSuggestionDto.Type.TITLE, 3),
+                new BookSuggestionDto("Qwzx Álvarez", BookSuggestionDto.Type.AUTHOR, 2),
+                new BookSuggestionDto("Qwzx Other", BookSuggestionDto.Type.AUTHOR, 2)), afterWrites);
+
+        bookSuggestions.rebuild();
+        assertEquals(afterWrites, bookSuggestions.suggest("qwzx", 3));
+    }
+
+    @Test
+    void indexReturnsTheHeaviestEntriesOfThePrefix() {
+        Random random = new Random(42);
+        List<BookSuggestionDto> all = new ArrayList<>();
+        SuggestionIndex.Builder builder = SuggestionIndex.builder();
+        for (int i = 0; i < 2000; i++) {
+            String text = Integer.toString(random.nextInt(100_000), 36);
+            int weight = 1 + random.nextInt(20);
+            builder.add(text, BookSuggestionDto.Type.TITLE, weight);
+            all.add(new BookSuggestionDto(text, BookSuggestionDto.Type.TITLE, weight));
+        }
+        SuggestionIndex index = builder.build();
+
+        for (String prefix : List.of("1", "a", "zz", "2b", "x9")) {
+            List<BookSuggestionDto> expected = all.stream()
+                    .filter(suggestion -> suggestion.text().startsWith(prefix))
+                    .collect(Collectors.toMap(BookSuggestionDto::text, BookSuggestionDto::books,
+                            Long::sum))
+                    .entrySet().stream()
+                    .map(entry -> new BookSuggestionDto(entry.getKey(), BookSuggestionDto.Type.TITLE, entry.getValue()))
+                    .sorted(Comparator.comparingLong(BookSuggestionDto::books).reversed()
+                            .thenComparing(BookSuggestionDto::text))
+                    .limit(7)
+                    .toList();
+
+            assertEquals(expected, index.top(prefix, 7), prefix);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.chiedo.bookapi.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "books.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class AuthenticationCacheTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repeatedCredentialsSkipTheBcryptCheck() throws Exception {
+        String username = register("secret");
+
+        assertEquals(200, status(username, "secret"));
+        double verified = passwordChecks();
+
+        assertEquals(200, status(username, "secret"));
+        assertEquals(200, status(username, "secret"));
+        assertEquals(verified, passwordChecks(), "answered from the cache");
+    }
+
+    @Test
+    void wrongPasswordIsRejectedAfterACachedSuccess() throws Exception {
+        String username = register("secret");
+
+        assertEquals(200, status(username, "secret"));
+        assertEquals(401, status(username, "Secret"));
+        assertEquals(401, status(username, "secret "));
+        assertEquals(200, status(username, "secret"));
+    }
+
+    @Test
+    void registeringTheUserAgainDropsTheCachedCredentials() throws Exception {
+        String username = register("before");
+        assertEquals(200, status(username, "before"));
+
+        jdbcTemplate.update("DELETE FROM users WHERE username = ?", username);
+        register(username, "after");
+
+        assertEquals(401, status(username, "before"));
+        assertEquals(200, status(username, "after"));
+    }
+
+    private String register(String password) throws Exception {
+        String username = "cached" + USERS.incrementAndGet();
+        register(username, password);
+        return username;
+    }
+
+    private void register(String username, String password) throws Exception {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\",\"authority\":\"ROLE_USER\"}";
+        assertEquals(200, mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body)).andReturn().getResponse().getStatus());
+    }
+
+    private int status(String username, String password) throws Exception {
+        return mockMvc.perform(get("/api/v1/books/suggest").param("q", "a").with(httpBasic(username, password)))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private double passwordChecks() {
+        return meterRegistry.get("books.auth.password").tag("operation", "matches").timer().count();
+    }
+}